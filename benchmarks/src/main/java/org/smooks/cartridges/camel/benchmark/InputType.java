@@ -0,0 +1,114 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.benchmark;
+
+import org.apache.camel.component.file.GenericFile;
+import org.smooks.api.SmooksException;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The message body types a Smooks endpoint typically receives.
+ */
+public enum InputType {
+    STRING,
+    INPUT_STREAM,
+    WRAPPED_FILE,
+    DOM_NODE;
+
+    /**
+     * Prepares the body of this type for the given payload. Expensive conversions (file, DOM) happen here,
+     * once per trial, and not in {@link Body#get()}.
+     *
+     * @param payload The payload.
+     * @return The body supplier.
+     */
+    public Body prepare(final byte[] payload) {
+        switch (this) {
+            case STRING:
+                final String string = new String(payload, StandardCharsets.UTF_8);
+                return () -> string;
+            case INPUT_STREAM:
+                return () -> new ByteArrayInputStream(payload);
+            case WRAPPED_FILE:
+                final File file = Payloads.toTempFile(payload);
+                final GenericFile<File> genericFile = new GenericFile<>();
+                genericFile.setFile(file);
+                genericFile.setBody(file);
+                genericFile.setFileName(file.getName());
+                genericFile.setAbsoluteFilePath(file.getAbsolutePath());
+                genericFile.setFileLength(file.length());
+                return () -> genericFile;
+            case DOM_NODE:
+                final Document document = parse(payload);
+                return () -> document;
+            default:
+                throw new IllegalStateException(name());
+        }
+    }
+
+    private static Document parse(final byte[] payload) {
+        try {
+            final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            documentBuilderFactory.setNamespaceAware(true);
+            return documentBuilderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(payload));
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new SmooksException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Supplies a body to set on each benchmarked exchange.
+     */
+    @FunctionalInterface
+    public interface Body {
+        Object get();
+    }
+}
@@ -0,0 +1,220 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.benchmark;
+
+import org.smooks.api.SmooksException;
+import org.smooks.support.StreamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+/**
+ * Generates benchmark payloads of a requested size by repeating a record of the fixtures found in the
+ * cartridge's <code>src/test/resources</code>.
+ */
+public final class Payloads {
+
+    /**
+     * A payload is made up of a head, a record repeated as many times as needed to reach the
+     * requested size, and a tail.
+     */
+    public enum Fixture {
+        /**
+         * Customer records as consumed by <code>csv-smooks-unmarshal-config.xml</code>.
+         */
+        CSV("", "christian,mueller,Male,33,germany\n", ""),
+        /**
+         * <code>data/order.edi</code> with its <code>ORD</code> segment repeated.
+         */
+        EDI(null, null, ""),
+        /**
+         * Coordinates as bound by the bean routing tests.
+         */
+        XML("<coords>", "<coord x='1' y='2'/>", "</coords>"),
+        /**
+         * The Cp1047 (EBCDIC) encoded <code>EBCDIC-input-message</code> order with its <code>order-item</code>
+         * repeated.
+         */
+        EBCDIC(null, null, null, Charset.forName("Cp1047"));
+
+        private final String head;
+        private final String record;
+        private final String tail;
+        private final Charset charset;
+
+        Fixture(final String head, final String record, final String tail) {
+            this(head, record, tail, StandardCharsets.UTF_8);
+        }
+
+        Fixture(final String head, final String record, final String tail, final Charset charset) {
+            this.head = head;
+            this.record = record;
+            this.tail = tail;
+            this.charset = charset;
+        }
+
+        /**
+         * @return The charset the payloads of this fixture are encoded with.
+         */
+        public Charset getCharset() {
+            return charset;
+        }
+    }
+
+    private Payloads() {
+    }
+
+    /**
+     * Parses a size such as <code>1KB</code>, <code>64KB</code>, <code>100MB</code> or <code>1GB</code>.
+     *
+     * @param size The size.
+     * @return The size in bytes.
+     */
+    public static long parseSize(final String size) {
+        final String normalizedSize = size.trim().toUpperCase(Locale.ROOT);
+        if (normalizedSize.endsWith("GB")) {
+            return Long.parseLong(normalizedSize.substring(0, normalizedSize.length() - 2).trim()) << 30;
+        } else if (normalizedSize.endsWith("MB")) {
+            return Long.parseLong(normalizedSize.substring(0, normalizedSize.length() - 2).trim()) << 20;
+        } else if (normalizedSize.endsWith("KB")) {
+            return Long.parseLong(normalizedSize.substring(0, normalizedSize.length() - 2).trim()) << 10;
+        } else if (normalizedSize.endsWith("B")) {
+            return Long.parseLong(normalizedSize.substring(0, normalizedSize.length() - 1).trim());
+        } else {
+            return Long.parseLong(normalizedSize);
+        }
+    }
+
+    /**
+     * Number of fixture records fitting in a payload of the given size.
+     *
+     * @param fixture The fixture.
+     * @param size    The payload size, see {@link #parseSize(String)}.
+     * @return The record count, at least 1.
+     */
+    public static int recordCount(final Fixture fixture, final String size) {
+        final String[] parts = parts(fixture);
+        final long available = parseSize(size) - parts[0].length() - parts[2].length();
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, available / parts[1].length()));
+    }
+
+    /**
+     * Creates a payload of (approximately) the given size, encoded with the {@link Fixture#getCharset() charset} of
+     * the fixture.
+     *
+     * @param fixture The fixture.
+     * @param size    The payload size, see {@link #parseSize(String)}.
+     * @return The payload.
+     */
+    public static byte[] create(final Fixture fixture, final String size) {
+        final String[] parts = parts(fixture);
+        final byte[] head = parts[0].getBytes(fixture.charset);
+        final byte[] record = parts[1].getBytes(fixture.charset);
+        final byte[] tail = parts[2].getBytes(fixture.charset);
+        final int recordCount = recordCount(fixture, size);
+
+        final byte[] payload = new byte[Math.addExact(head.length + tail.length, Math.multiplyExact(record.length, recordCount))];
+        System.arraycopy(head, 0, payload, 0, head.length);
+        int offset = head.length;
+        for (int i = 0; i < recordCount; i++) {
+            System.arraycopy(record, 0, payload, offset, record.length);
+            offset += record.length;
+        }
+        System.arraycopy(tail, 0, payload, offset, tail.length);
+
+        return payload;
+    }
+
+    /**
+     * Writes the payload to a temporary file that is deleted on JVM exit.
+     *
+     * @param payload The payload.
+     * @return The file.
+     */
+    public static File toTempFile(final byte[] payload) {
+        try {
+            final File file = File.createTempFile("smooks-camel-benchmark", ".payload");
+            file.deleteOnExit();
+            Files.write(file.toPath(), payload);
+            return file;
+        } catch (IOException e) {
+            throw new SmooksException(e.getMessage(), e);
+        }
+    }
+
+    private static String[] parts(final Fixture fixture) {
+        if (fixture == Fixture.EBCDIC) {
+            final String orderXml = readResource("/EBCDIC-input-message", fixture.charset);
+            final int firstOrderItem = orderXml.indexOf("<order-item>");
+            final int secondOrderItem = orderXml.indexOf("<order-item>", firstOrderItem + 1);
+            final int orderItemsEnd = orderXml.indexOf("</order-items>");
+
+            return new String[]{orderXml.substring(0, firstOrderItem), orderXml.substring(firstOrderItem, secondOrderItem), orderXml.substring(orderItemsEnd)};
+        }
+        if (fixture != Fixture.EDI) {
+            return new String[]{fixture.head, fixture.record, fixture.tail};
+        }
+
+        final String orderEdi = readResource("/data/order.edi", fixture.charset);
+        final int firstOrderSegment = orderEdi.indexOf("ORD*");
+        final int secondOrderSegment = orderEdi.indexOf("ORD*", firstOrderSegment + 1);
+
+        return new String[]{orderEdi.substring(0, firstOrderSegment), orderEdi.substring(firstOrderSegment, secondOrderSegment), fixture.tail};
+    }
+
+    private static String readResource(final String resource, final Charset charset) {
+        try (InputStream inputStream = Payloads.class.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new SmooksException("Benchmark fixture '" + resource + "' not found on the classpath");
+            }
+            return StreamUtils.readStreamAsString(inputStream, charset.name());
+        } catch (IOException e) {
+            throw new SmooksException(e.getMessage(), e);
+        }
+    }
+}
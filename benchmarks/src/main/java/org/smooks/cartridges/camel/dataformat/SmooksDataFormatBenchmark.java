@@ -0,0 +1,131 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.dataformat;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.*;
+import org.smooks.cartridges.camel.benchmark.Payloads;
+import org.smooks.cartridges.camel.dataformat.gender.Gender;
+import org.smooks.io.payload.JavaSourceWithoutEventStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link SmooksDataFormat#marshal(Exchange, Object, java.io.OutputStream)} and
+ * {@link SmooksDataFormat#unmarshal(Exchange, java.io.InputStream)} with the CSV fixture configs
+ * (<code>csv-smooks-marshal-config.xml</code> and <code>csv-smooks-unmarshal-config.xml</code>).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class SmooksDataFormatBenchmark {
+
+    @Param({"1KB", "1MB", "100MB", "500MB"})
+    public String payloadSize;
+
+    @Param({"false", "true"})
+    public boolean streamingMarshal;
+
+    private DefaultCamelContext camelContext;
+    private SmooksDataFormat marshalDataFormat;
+    private SmooksDataFormat unmarshalDataFormat;
+    private byte[] csv;
+    private List<Customer> customers;
+
+    @Setup
+    public void setUp() throws Exception {
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+
+        marshalDataFormat = new SmooksDataFormat("csv-smooks-marshal-config.xml");
+        marshalDataFormat.setCamelContext(camelContext);
+        marshalDataFormat.setStreamingMarshal(streamingMarshal);
+        marshalDataFormat.start();
+
+        unmarshalDataFormat = new SmooksDataFormat("csv-smooks-unmarshal-config.xml");
+        unmarshalDataFormat.setCamelContext(camelContext);
+        unmarshalDataFormat.start();
+
+        csv = Payloads.create(Payloads.Fixture.CSV, payloadSize);
+
+        final int recordCount = Payloads.recordCount(Payloads.Fixture.CSV, payloadSize);
+        customers = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            final Customer customer = new Customer();
+            customer.setFirstName("christian");
+            customer.setLastName("mueller");
+            customer.setGender(Gender.Male);
+            customer.setAge(33);
+            customer.setCountry("germany");
+            customers.add(customer);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        marshalDataFormat.stop();
+        unmarshalDataFormat.stop();
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public void marshal() throws Exception {
+        final Exchange exchange = new DefaultExchange(camelContext);
+        marshalDataFormat.marshal(exchange, new JavaSourceWithoutEventStream(customers), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Object unmarshal() {
+        final Exchange exchange = new DefaultExchange(camelContext);
+        return unmarshalDataFormat.unmarshal(exchange, new ByteArrayInputStream(csv));
+    }
+}
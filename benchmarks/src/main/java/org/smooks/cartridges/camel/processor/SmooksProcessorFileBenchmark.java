@@ -0,0 +1,107 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.*;
+import org.smooks.Smooks;
+import org.smooks.cartridges.camel.benchmark.InputType;
+import org.smooks.cartridges.camel.benchmark.Payloads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link SmooksProcessor#process(Exchange)} filtering a file body, without visitors, for every
+ * {@link FileReadMode} and read buffer size. A <code>readBufferSize</code> of 0 is the mode's default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class SmooksProcessorFileBenchmark {
+
+    @Param({"1MB", "100MB", "500MB"})
+    public String payloadSize;
+
+    @Param({"STREAM", "CHANNEL"})
+    public FileReadMode fileReadMode;
+
+    @Param({"0", "1048576"})
+    public int readBufferSize;
+
+    private DefaultCamelContext camelContext;
+    private SmooksProcessor smooksProcessor;
+    private InputType.Body body;
+
+    @Setup
+    public void setUp() {
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+
+        smooksProcessor = new SmooksProcessor(new Smooks(), camelContext);
+        smooksProcessor.setFileReadMode(fileReadMode);
+        smooksProcessor.setReadBufferSize(readBufferSize);
+        smooksProcessor.start();
+
+        body = InputType.WRAPPED_FILE.prepare(Payloads.create(Payloads.Fixture.XML, payloadSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        smooksProcessor.stop();
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public Object process() {
+        final Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setBody(body.get());
+        smooksProcessor.process(exchange);
+
+        return exchange.getMessage().getBody();
+    }
+}
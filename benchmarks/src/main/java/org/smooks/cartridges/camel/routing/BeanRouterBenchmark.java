@@ -0,0 +1,117 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.openjdk.jmh.annotations.*;
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+import org.smooks.cartridges.camel.Coordinate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of routing a bean with {@link BeanRouter} to a <code>direct</code> endpoint, with and without
+ * correlation IDs, for Smooks bean contexts of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BeanRouterBenchmark {
+
+    private static final String BEAN_ID = "coordinate";
+    private static final String TO_ENDPOINT = "direct:sink";
+
+    @Param({"1", "10", "100"})
+    public int beanContextSize;
+
+    @Param({"false", "true"})
+    public boolean correlationId;
+
+    private DefaultCamelContext camelContext;
+    private Smooks smooks;
+    private BeanRouter beanRouter;
+    private ExecutionContext executionContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        camelContext = new DefaultCamelContext();
+        camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from(TO_ENDPOINT).process(exchange -> {
+                });
+            }
+        });
+        camelContext.start();
+
+        beanRouter = new BeanRouter(camelContext).setBeanId(BEAN_ID).setToEndpoint(TO_ENDPOINT);
+        if (correlationId) {
+            beanRouter.setCorrelationIdName("correlationId").setCorrelationIdPattern("${coordinate.x}-${coordinate.y}");
+        }
+        beanRouter.postConstruct();
+
+        smooks = new Smooks();
+        executionContext = smooks.createExecutionContext();
+        executionContext.getBeanContext().addBean(BEAN_ID, new Coordinate(1, 2));
+        for (int i = 1; i < beanContextSize; i++) {
+            executionContext.getBeanContext().addBean("bean" + i, new Coordinate(i, i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        beanRouter.preDestroy();
+        smooks.close();
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public void sendBean() {
+        beanRouter.visitAfter(null, executionContext);
+    }
+}
@@ -0,0 +1,161 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.converters;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.TypeConverter;
+import org.apache.camel.spi.TypeConverterRegistry;
+import org.apache.camel.support.TypeConverterSupport;
+import org.smooks.Smooks;
+import org.smooks.api.ApplicationContext;
+import org.smooks.cartridges.javabean.BeanRuntimeInfo;
+import org.smooks.io.payload.JavaResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers, for every bean class declared in a Smooks configuration, a direct {@link TypeConverter} from
+ * {@link JavaResult.ResultMap} to that class. Converting a result map to one of its bean classes (e.g.,
+ * <code>getBody(Customer.class)</code>) is then a lookup by beanId instead of a scan of the map by the
+ * {@link ResultConverter#convertTo(Class, Exchange, Object, TypeConverterRegistry) fallback converter}.
+ * <p/>
+ * Only non-collection beans are registered, and never over a converter of the same types that is already registered.
+ */
+public final class ResultMapTypeConverters {
+
+    private ResultMapTypeConverters() {
+    }
+
+    /**
+     * Register the result map converters of the bean classes declared in the Smooks configuration. Every registration
+     * must be followed by an {@link #unregister(CamelContext, Smooks)} once the Smooks instance is no longer used.
+     *
+     * @param camelContext The CamelContext whose type converter registry the converters are added to.
+     * @param smooks       The configured Smooks instance.
+     */
+    public static void register(final CamelContext camelContext, final Smooks smooks) {
+        final TypeConverterRegistry typeConverterRegistry = camelContext.getTypeConverterRegistry();
+        synchronized (typeConverterRegistry) {
+            for (Map.Entry<String, Class<?>> beanClass : getBeanClasses(smooks).entrySet()) {
+                final TypeConverter typeConverter = typeConverterRegistry.lookup(beanClass.getValue(), JavaResult.ResultMap.class);
+                if (typeConverter == null) {
+                    final ResultMapTypeConverter resultMapTypeConverter = new ResultMapTypeConverter();
+                    resultMapTypeConverter.addBeanId(beanClass.getKey());
+                    typeConverterRegistry.addTypeConverter(beanClass.getValue(), JavaResult.ResultMap.class, resultMapTypeConverter);
+                } else if (typeConverter instanceof ResultMapTypeConverter) {
+                    // another configuration binds the same class, possibly under another beanId
+                    ((ResultMapTypeConverter) typeConverter).addBeanId(beanClass.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Unregister the result map converters registered by {@link #register(CamelContext, Smooks)}. A converter is
+     * removed once none of the Smooks instances it was registered for is left.
+     *
+     * @param camelContext The CamelContext whose type converter registry the converters were added to.
+     * @param smooks       The Smooks instance the converters were registered for.
+     */
+    public static void unregister(final CamelContext camelContext, final Smooks smooks) {
+        final TypeConverterRegistry typeConverterRegistry = camelContext.getTypeConverterRegistry();
+        synchronized (typeConverterRegistry) {
+            for (Map.Entry<String, Class<?>> beanClass : getBeanClasses(smooks).entrySet()) {
+                final TypeConverter typeConverter = typeConverterRegistry.lookup(beanClass.getValue(), JavaResult.ResultMap.class);
+                if (typeConverter instanceof ResultMapTypeConverter && ((ResultMapTypeConverter) typeConverter).removeBeanId(beanClass.getKey())) {
+                    typeConverterRegistry.removeTypeConverter(beanClass.getValue(), JavaResult.ResultMap.class);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Class<?>> getBeanClasses(final Smooks smooks) {
+        // the bean runtime info is only recorded once the content delivery configuration is initialised
+        smooks.createExecutionContext();
+        final ApplicationContext applicationContext = smooks.getApplicationContext();
+        final Map<String, Class<?>> beanClasses = new LinkedHashMap<>();
+        for (String beanId : applicationContext.getBeanIdStore().getBeanIdMap().keySet()) {
+            final BeanRuntimeInfo beanRuntimeInfo = BeanRuntimeInfo.getBeanRuntimeInfo(beanId, applicationContext);
+            if (beanRuntimeInfo != null && beanRuntimeInfo.getClassification() == BeanRuntimeInfo.Classification.NON_COLLECTION) {
+                beanClasses.put(beanId, beanRuntimeInfo.getPopulateType());
+            }
+        }
+
+        return beanClasses;
+    }
+
+    private static final class ResultMapTypeConverter extends TypeConverterSupport {
+
+        // the number of registered Smooks instances that bind each beanId
+        private final Map<String, Integer> beanIds = new ConcurrentHashMap<>();
+
+        private void addBeanId(final String beanId) {
+            beanIds.merge(beanId, 1, Integer::sum);
+        }
+
+        /**
+         * @return <code>true</code> if no beanId is left.
+         */
+        private boolean removeBeanId(final String beanId) {
+            beanIds.computeIfPresent(beanId, (key, count) -> count > 1 ? count - 1 : null);
+            return beanIds.isEmpty();
+        }
+
+        @SuppressWarnings("rawtypes")
+        @Override
+        public <T> T convertTo(final Class<T> type, final Exchange exchange, final Object value) {
+            final Map resultMap = (Map) value;
+            for (String beanId : beanIds.keySet()) {
+                final Object bean = resultMap.get(beanId);
+                if (type.isInstance(bean)) {
+                    return type.cast(bean);
+                }
+            }
+            // exported under a beanId of another configuration
+            return ResultConverter.convertTo(type, exchange, value, null);
+        }
+    }
+}
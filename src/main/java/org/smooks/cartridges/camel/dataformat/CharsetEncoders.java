@@ -0,0 +1,128 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.dataformat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes character content into an {@link OutputStream} chunk by chunk, with {@link CharsetEncoder}s and buffers that
+ * are reused by all the calls made on the same thread. Unlike <code>content.toString().getBytes(charset)</code>, neither
+ * a copy of the content nor its encoded bytes are held in memory as a whole.
+ */
+final class CharsetEncoders {
+
+    static final int CHUNK_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<CharsetEncoders> THREAD_ENCODERS = ThreadLocal.withInitial(CharsetEncoders::new);
+
+    private final Map<Charset, CharsetEncoder> encoders = new HashMap<>();
+    private final char[] chars = new char[CHUNK_SIZE];
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(CHUNK_SIZE * 2);
+
+    private CharsetEncoders() {
+    }
+
+    /**
+     * Encode the content into the output stream. Malformed and unmappable characters are replaced, as with
+     * {@link String#getBytes(Charset)}.
+     *
+     * @param content      The content to encode.
+     * @param charset      The charset to encode with.
+     * @param outputStream The output stream to write the encoded content to.
+     * @throws IOException Failed to write to the output stream.
+     */
+    static void encode(final StringBuffer content, final Charset charset, final OutputStream outputStream) throws IOException {
+        THREAD_ENCODERS.get().encodeChunks(content, charset, outputStream);
+    }
+
+    private void encodeChunks(final StringBuffer content, final Charset charset, final OutputStream outputStream) throws IOException {
+        final CharsetEncoder encoder = encoders.computeIfAbsent(charset, key -> key.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        encoder.reset();
+        charBuffer.clear();
+        byteBuffer.clear();
+
+        final int length = content.length();
+        int offset = 0;
+        boolean endOfInput;
+        do {
+            // a surrogate pair split across chunks is left in the char buffer by the previous chunk
+            final int count = Math.min(charBuffer.remaining(), length - offset);
+            content.getChars(offset, offset + count, chars, charBuffer.position());
+            charBuffer.position(charBuffer.position() + count);
+            offset += count;
+            endOfInput = offset == length;
+
+            charBuffer.flip();
+            CoderResult coderResult;
+            while ((coderResult = encoder.encode(charBuffer, byteBuffer, endOfInput)).isOverflow()) {
+                drain(outputStream);
+            }
+            if (coderResult.isError()) {
+                coderResult.throwException();
+            }
+            charBuffer.compact();
+        } while (!endOfInput);
+
+        while (encoder.flush(byteBuffer).isOverflow()) {
+            drain(outputStream);
+        }
+        drain(outputStream);
+    }
+
+    private void drain(final OutputStream outputStream) throws IOException {
+        outputStream.write(byteBuffer.array(), 0, byteBuffer.position());
+        byteBuffer.clear();
+    }
+}
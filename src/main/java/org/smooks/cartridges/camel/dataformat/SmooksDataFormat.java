@@ -45,25 +45,39 @@ package org.smooks.cartridges.camel.dataformat;
 import org.apache.camel.*;
 import org.apache.camel.spi.DataFormat;
 import org.apache.camel.support.processor.MarshalProcessor;
+import org.apache.camel.support.SynchronizationAdapter;
 import org.apache.camel.support.processor.UnmarshalProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.smooks.Smooks;
 import org.smooks.SmooksFactory;
 import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
 import org.smooks.api.SmooksException;
 import org.smooks.cartridges.camel.component.SmooksComponent;
+import org.smooks.cartridges.camel.converters.ResultMapTypeConverters;
+import org.smooks.cartridges.camel.processor.BeanStream;
+import org.smooks.cartridges.camel.processor.ExportResults;
+import org.smooks.cartridges.camel.processor.SmooksCache;
 import org.smooks.cartridges.camel.processor.SmooksProcessor;
-import org.smooks.engine.lookup.ExportsLookup;
+import org.smooks.cartridges.camel.processor.SmooksStartup;
 import org.smooks.io.payload.Exports;
 import org.smooks.io.payload.JavaSource;
 import org.smooks.io.payload.StringResult;
 import org.xml.sax.SAXException;
 
 import javax.xml.transform.Result;
+import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * SmooksDataFormat is a Camel data format which is a pluggable transformer
@@ -84,9 +98,21 @@ import java.util.List;
  * @author Daniel Bevenius
  */
 public class SmooksDataFormat implements DataFormat, CamelContextAware, Service {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmooksDataFormat.class);
+
     private Smooks smooks;
+    private ExportResults exportResults;
     private CamelContext camelContext;
     private final String smooksConfig;
+    private boolean streamingMarshal;
+    private boolean shareSmooks;
+    private boolean lazyStartup;
+    private boolean backgroundStartup;
+    private String warmUpUri;
+    private SmooksStartup startup;
+    private String streamBeanId;
+    private int streamQueueSize = SmooksProcessor.DEFAULT_STREAM_QUEUE_SIZE;
+    private ExecutorService streamExecutorService;
 
     public SmooksDataFormat(final String smooksConfig) throws Exception {
         this.smooksConfig = smooksConfig;
@@ -99,19 +125,41 @@ public class SmooksDataFormat implements DataFormat, CamelContextAware, Service
      * The Camel framework will call this method from {@link MarshalProcessor#process(Exchange)}
      * and it will take care of setting the Out Message's body to the bytes written to the toStream
      * OutputStream.
+     * <p/>
+     * The output is encoded with the charset named by the <code>CamelCharsetName</code> exchange property, falling back
+     * to the content encoding of the Smooks configuration.
+     * <p/>
+     * In {@link #setStreamingMarshal(boolean) streaming mode} Smooks writes straight to 'toStream' instead
+     * of buffering the whole result in memory.
      *
      * @param exchange The Camel {@link Exchange}.
      * @param fromBody The object to be marshalled into the output stream.
      * @param toStream The output stream that will be written to.
      */
     public void marshal(final Exchange exchange, final Object fromBody, final OutputStream toStream) throws Exception {
-        final ExecutionContext execContext = smooks.createExecutionContext();
+        startup.await();
+        final ExecutionContext execContext = createExecutionContext(exchange);
         final TypeConverter typeConverter = exchange.getContext().getTypeConverter();
         final JavaSource source = typeConverter.mandatoryConvertTo(JavaSource.class, exchange, fromBody);
-        final StringResult stringResult = new StringResult();
-        smooks.filterSource(execContext, source, stringResult);
+        if (streamingMarshal) {
+            // Smooks closes the writer of a StreamResult once filtering is done but toStream belongs to the caller
+            final OutputStreamWriter writer = new OutputStreamWriter(new NonClosingOutputStream(toStream), execContext.getContentEncoding());
+            smooks.filterSource(execContext, source, new StreamResult(writer));
+        } else {
+            final StringWriter writer = new StringWriter();
+            smooks.filterSource(execContext, source, new StreamResult(writer));
+
+            CharsetEncoders.encode(writer.getBuffer(), Charset.forName(execContext.getContentEncoding()), toStream);
+        }
+    }
 
-        toStream.write(stringResult.getResult().getBytes(execContext.getContentEncoding()));
+    private ExecutionContext createExecutionContext(final Exchange exchange) {
+        final ExecutionContext execContext = smooks.createExecutionContext();
+        final String charsetName = exchange.getProperty(SmooksProcessor.CAMEL_CHARACTER_ENCODING, String.class);
+        if (charsetName != null) {
+            execContext.setContentEncoding(charsetName);
+        }
+        return execContext;
     }
 
     /**
@@ -119,19 +167,50 @@ public class SmooksDataFormat implements DataFormat, CamelContextAware, Service
      * </p>
      * The Camel framework will call this method from {@link UnmarshalProcessor#process(Exchange)}
      * and it will take care of setting the returned Object on the Out Message's body.
+     * <p/>
+     * The fromStream is decoded with the charset named by the <code>CamelCharsetName</code> exchange property, falling
+     * back to the content encoding of the Smooks configuration.
+     * <p/>
+     * With a {@link #setStreamBeanId(String) streamBeanId}, the fromStream is filtered on a separate thread and a
+     * {@link BeanStream} iterator over the streamed beans is returned straight away.
      *
      * @param exchange   The Camel {@link Exchange}.
      * @param fromStream The InputStream that will be unmarshalled into an Object instance.
      */
     public Object unmarshal(final Exchange exchange, final InputStream fromStream) {
-        final ExecutionContext execContext = smooks.createExecutionContext();
-        final Exports exports = smooks.getApplicationContext().getRegistry().lookup(new ExportsLookup());
-        final Result[] results = exports.createResults();
-        smooks.filterSource(execContext, new StreamSource(fromStream), results);
-        return getResult(exports, results, exchange);
+        startup.await();
+        final ExecutionContext execContext = createExecutionContext(exchange);
+        if (streamBeanId != null) {
+            final BeanStream beanStream = BeanStream.filter(smooks, execContext, new StreamSource(fromStream), streamBeanId, streamQueueSize, streamExecutorService, failure -> {
+                if (failure != null) {
+                    // also rethrown to the consumer of the stream, which may have stopped iterating
+                    LOGGER.warn("Failed to stream beanId '" + streamBeanId + "' for exchange " + exchange.getExchangeId() + ".", failure);
+                }
+            });
+            // frees the filtering thread should the route not consume the whole stream
+            exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+                @Override
+                public void onDone(final Exchange exchange) {
+                    beanStream.close();
+                }
+            });
+            return beanStream;
+        }
+        final Result[] results = exportResults.createResults();
+        Object result = null;
+        try {
+            smooks.filterSource(execContext, new StreamSource(fromStream), results);
+            result = getResult(exportResults.getExports(), results, exchange);
+            return result;
+        } finally {
+            exportResults.release(results, result);
+        }
     }
 
     protected Object getResult(final Exports exports, final Result[] results, final Exchange exchange) {
+        if (exports == exportResults.getExports()) {
+            return exportResults.extractResults(results);
+        }
         final List<Object> objects = Exports.extractResults(results, exports);
         if (objects.size() == 1) {
             return objects.get(0);
@@ -140,6 +219,109 @@ public class SmooksDataFormat implements DataFormat, CamelContextAware, Service
         }
     }
 
+    public boolean isStreamingMarshal() {
+        return streamingMarshal;
+    }
+
+    /**
+     * Whether {@link #marshal(Exchange, Object, OutputStream)} filters directly into the supplied
+     * OutputStream rather than into an in-memory {@link StringResult}. Memory usage no longer grows with the
+     * size of the marshalled document but, should filtering fail, part of the output may already have been
+     * written. Defaults to <code>false</code>.
+     *
+     * @param streamingMarshal <code>true</code> to stream the marshalled output.
+     */
+    public void setStreamingMarshal(boolean streamingMarshal) {
+        this.streamingMarshal = streamingMarshal;
+    }
+
+    public boolean isShareSmooks() {
+        return shareSmooks;
+    }
+
+    /**
+     * Whether to share the Smooks instance with the other data formats and processors of the CamelContext that are
+     * configured with the same Smooks configuration (see {@link SmooksCache}). Shared data formats also share the
+     * registry and state of the Smooks instance, so sharing is opt-in. Defaults to <code>false</code>.
+     *
+     * @param shareSmooks <code>true</code> to share the Smooks instance.
+     */
+    public void setShareSmooks(boolean shareSmooks) {
+        this.shareSmooks = shareSmooks;
+    }
+
+    public boolean isLazyStartup() {
+        return lazyStartup;
+    }
+
+    /**
+     * Whether to create the Smooks instance on the first marshal or unmarshal instead of on start. Defaults to
+     * <code>false</code>.
+     *
+     * @param lazyStartup <code>true</code> to create the Smooks instance on first use.
+     */
+    public void setLazyStartup(boolean lazyStartup) {
+        this.lazyStartup = lazyStartup;
+    }
+
+    public boolean isBackgroundStartup() {
+        return backgroundStartup;
+    }
+
+    /**
+     * Whether to create the Smooks instance on a separate thread on start. Marshalling and unmarshalling wait until
+     * the instance is ready. Defaults to <code>false</code>.
+     *
+     * @param backgroundStartup <code>true</code> to create the Smooks instance in the background.
+     */
+    public void setBackgroundStartup(boolean backgroundStartup) {
+        this.backgroundStartup = backgroundStartup;
+    }
+
+    public String getWarmUpUri() {
+        return warmUpUri;
+    }
+
+    /**
+     * Set the URI of a sample stream (e.g., <code>classpath:sample.csv</code>) that is unmarshalled, and discarded,
+     * once the Smooks instance is created. A sample that fails to unmarshal is logged and ignored.
+     *
+     * @param warmUpUri The sample stream URI.
+     */
+    public void setWarmUpUri(String warmUpUri) {
+        this.warmUpUri = warmUpUri;
+    }
+
+    public String getStreamBeanId() {
+        return streamBeanId;
+    }
+
+    /**
+     * Set the beanId of the beans to stream. {@link #unmarshal(Exchange, InputStream)} then returns a {@link BeanStream}
+     * iterator over the beans created under that beanId while the stream is filtered on a separate thread, so that a
+     * streaming splitter (e.g., <code>unmarshal(smooksDataFormat).split(body()).streaming()</code>) consumes the beans
+     * in constant memory. Exports are ignored.
+     *
+     * @param streamBeanId The beanId of the streamed beans.
+     */
+    public void setStreamBeanId(String streamBeanId) {
+        this.streamBeanId = streamBeanId;
+    }
+
+    public int getStreamQueueSize() {
+        return streamQueueSize;
+    }
+
+    /**
+     * Set the number of streamed beans that can be waiting to be consumed before filtering blocks. Only applies when a
+     * {@link #setStreamBeanId(String) streamBeanId} is set. Defaults to {@link SmooksProcessor#DEFAULT_STREAM_QUEUE_SIZE}.
+     *
+     * @param streamQueueSize The maximum number of unconsumed beans.
+     */
+    public void setStreamQueueSize(int streamQueueSize) {
+        this.streamQueueSize = streamQueueSize;
+    }
+
     public void setCamelContext(CamelContext camelContext) {
         this.camelContext = camelContext;
     }
@@ -149,21 +331,81 @@ public class SmooksDataFormat implements DataFormat, CamelContextAware, Service
     }
 
     public void start() {
-        final SmooksFactory smooksFactory = (SmooksFactory) camelContext.getRegistry().lookupByName(SmooksFactory.class.getName());
-        try {
-            if (smooksFactory != null) {
-                smooks = smooksFactory.createInstance(smooksConfig);
-            } else {
-                smooks = new Smooks(smooksConfig);
+        if (streamBeanId != null) {
+            if (streamQueueSize < 1) {
+                throw new SmooksConfigException(this + " configured with a 'streamQueueSize' of " + streamQueueSize + ". 'streamQueueSize' must be greater than 0.");
             }
-        } catch (IOException | SAXException e) {
-            throw new SmooksException(e.getMessage(), e);
+            streamExecutorService = camelContext.getExecutorServiceManager().newCachedThreadPool(this, "SmooksStream");
+        }
+        startup = new SmooksStartup(camelContext, this, this::initialize);
+        startup.start(lazyStartup, backgroundStartup);
+    }
+
+    private void initialize() {
+        if (shareSmooks) {
+            smooks = SmooksCache.get(camelContext).acquire(smooksConfig);
+        } else {
+            final SmooksFactory smooksFactory = (SmooksFactory) camelContext.getRegistry().lookupByName(SmooksFactory.class.getName());
+            try {
+                if (smooksFactory != null) {
+                    smooks = smooksFactory.createInstance(smooksConfig);
+                } else {
+                    smooks = new Smooks(smooksConfig);
+                }
+            } catch (IOException | SAXException e) {
+                throw new SmooksException(e.getMessage(), e);
+            }
+        }
+        // exports do not change once Smooks is configured
+        exportResults = ExportResults.of(smooks);
+        ResultMapTypeConverters.register(camelContext, smooks);
+        if (warmUpUri != null) {
+            SmooksStartup.warmUp(camelContext, smooks, warmUpUri);
         }
     }
 
     public void stop() {
+        if (startup != null) {
+            startup.stop();
+        }
+        if (streamExecutorService != null) {
+            // interrupts the executions whose bean streams are left unconsumed
+            camelContext.getExecutorServiceManager().shutdownNow(streamExecutorService);
+            streamExecutorService = null;
+        }
         if (smooks != null) {
-            smooks.close();
+            ResultMapTypeConverters.unregister(camelContext, smooks);
+            if (shareSmooks) {
+                SmooksCache.get(camelContext).release(smooksConfig);
+            } else {
+                smooks.close();
+            }
+            smooks = null;
+        }
+        if (exportResults != null) {
+            exportResults.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SmooksDataFormat [smooksConfig=" + smooksConfig + "]";
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        private NonClosingOutputStream(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
         }
     }
 
@@ -0,0 +1,207 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.camel.CamelContext;
+import org.smooks.cartridges.camel.routing.ConditionStatistics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics recorded in a Micrometer {@link MeterRegistry}. Meters are registered once per processor and route so that
+ * recording does not look them up.
+ */
+final class MicrometerSmooksMetrics implements SmooksMetrics {
+    static final String FILTER_TIMER = "smooks.filter";
+    static final String FILTER_FAILURES = "smooks.filter.failures";
+    static final String FILTER_INPUT_SIZE = "smooks.filter.input.size";
+    static final String FILTER_OUTPUT_SIZE = "smooks.filter.output.size";
+    static final String ROUTE_TIMER = "smooks.route";
+    static final String ROUTE_FAILURES = "smooks.route.failures";
+    static final String ROUTE_CONDITION_EVALUATIONS = "smooks.route.condition.evaluations";
+    static final String ROUTE_CONDITION_REJECTIONS = "smooks.route.condition.rejections";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Tags, ConditionStatisticsSum> conditionStatisticsSums = new ConcurrentHashMap<>();
+
+    MicrometerSmooksMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    static SmooksMetrics create(final CamelContext camelContext) {
+        final MeterRegistry meterRegistry = camelContext.getRegistry().findSingleByType(MeterRegistry.class);
+        return meterRegistry != null ? new MicrometerSmooksMetrics(meterRegistry) : null;
+    }
+
+    @Override
+    public FilterMetrics forProcessor(final String processorName) {
+        final Tags tags = Tags.of("processor", processorName);
+        final Map<FilterMetrics.Phase, Timer> phaseTimers = new EnumMap<>(FilterMetrics.Phase.class);
+        for (FilterMetrics.Phase phase : FilterMetrics.Phase.values()) {
+            phaseTimers.put(phase, Timer.builder(FILTER_TIMER).description("Time spent filtering exchanges, by phase").tags(tags).tag("phase", phase.name().toLowerCase()).register(meterRegistry));
+        }
+        final Counter failures = Counter.builder(FILTER_FAILURES).description("Exchanges that failed to filter").tags(tags).register(meterRegistry);
+        final DistributionSummary inputSize = DistributionSummary.builder(FILTER_INPUT_SIZE).description("Size of the filtered messages, when known").tags(tags).register(meterRegistry);
+        final DistributionSummary outputSize = DistributionSummary.builder(FILTER_OUTPUT_SIZE).description("Size of the filtering results, when known").tags(tags).register(meterRegistry);
+
+        return new FilterMetrics() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void recordPhase(final Phase phase, final long duration) {
+                phaseTimers.get(phase).record(duration, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void recordSize(final long inputSizeValue, final long outputSizeValue) {
+                if (inputSizeValue >= 0) {
+                    inputSize.record(inputSizeValue);
+                }
+                if (outputSizeValue >= 0) {
+                    outputSize.record(outputSizeValue);
+                }
+            }
+
+            @Override
+            public void recordFailure() {
+                failures.increment();
+            }
+        };
+    }
+
+    @Override
+    public RouteMetrics forRoute(final String beanId, final String toEndpoint, final ConditionStatistics conditionStatistics) {
+        final Tags tags = Tags.of("beanId", beanId, "endpoint", toEndpoint);
+        final Timer routed = Timer.builder(ROUTE_TIMER).description("Beans routed and their routing latency").tags(tags).register(meterRegistry);
+        final Counter failures = Counter.builder(ROUTE_FAILURES).description("Beans that could not be routed").tags(tags).register(meterRegistry);
+        final ConditionStatisticsSum conditionStatisticsSum;
+        if (conditionStatistics != null) {
+            // routers of the same beanId and endpoint (e.g., pooled or restarted ones) share the meters, so these
+            // read from every router's condition statistics when scraped rather than counted twice
+            conditionStatisticsSum = conditionStatisticsSums.computeIfAbsent(tags, key -> {
+                final ConditionStatisticsSum newConditionStatisticsSum = new ConditionStatisticsSum();
+                FunctionCounter.builder(ROUTE_CONDITION_EVALUATIONS, newConditionStatisticsSum, ConditionStatisticsSum::getEvaluationCount).description("Routing condition evaluations").tags(tags).register(meterRegistry);
+                FunctionCounter.builder(ROUTE_CONDITION_REJECTIONS, newConditionStatisticsSum, ConditionStatisticsSum::getFalseCount).description("Beans not routed because their condition did not match or failed").tags(tags).register(meterRegistry);
+                return newConditionStatisticsSum;
+            });
+            conditionStatisticsSum.add(conditionStatistics);
+        } else {
+            conditionStatisticsSum = null;
+        }
+
+        return new RouteMetrics() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void recordRouted(final long latency) {
+                routed.record(latency, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void recordFailure() {
+                failures.increment();
+            }
+
+            @Override
+            public void close() {
+                if (conditionStatisticsSum != null) {
+                    conditionStatisticsSum.remove(conditionStatistics);
+                }
+            }
+        };
+    }
+
+    /**
+     * Sum of the condition statistics of the routers sharing a set of tags. The counts of a closed router are kept so
+     * that the sums never decrease.
+     */
+    private static final class ConditionStatisticsSum {
+        private final Set<ConditionStatistics> conditionStatistics = ConcurrentHashMap.newKeySet();
+        private final LongAdder closedEvaluationCount = new LongAdder();
+        private final LongAdder closedFalseCount = new LongAdder();
+
+        private void add(final ConditionStatistics conditionStatistics) {
+            this.conditionStatistics.add(conditionStatistics);
+        }
+
+        private void remove(final ConditionStatistics conditionStatistics) {
+            if (this.conditionStatistics.remove(conditionStatistics)) {
+                closedEvaluationCount.add(conditionStatistics.getEvaluationCount());
+                closedFalseCount.add(conditionStatistics.getFalseCount());
+            }
+        }
+
+        private double getEvaluationCount() {
+            long evaluationCount = closedEvaluationCount.sum();
+            for (ConditionStatistics statistics : conditionStatistics) {
+                evaluationCount += statistics.getEvaluationCount();
+            }
+            return evaluationCount;
+        }
+
+        private double getFalseCount() {
+            long falseCount = closedFalseCount.sum();
+            for (ConditionStatistics statistics : conditionStatistics) {
+                falseCount += statistics.getFalseCount();
+            }
+            return falseCount;
+        }
+    }
+}
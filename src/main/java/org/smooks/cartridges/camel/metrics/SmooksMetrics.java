@@ -0,0 +1,85 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.metrics;
+
+import org.apache.camel.CamelContext;
+import org.smooks.cartridges.camel.routing.ConditionStatistics;
+
+/**
+ * Instrumentation of Smooks filtering and bean routing.
+ * <p/>
+ * The metrics of a {@link CamelContext} are, in order of preference, the <code>SmooksMetrics</code> bound in the
+ * Camel registry, Micrometer metrics when Micrometer is on the classpath and a <code>MeterRegistry</code> is bound in
+ * the Camel registry (e.g., by camel-micrometer), or no metrics at all.
+ */
+public interface SmooksMetrics {
+
+    /**
+     * Get the metrics of a processor.
+     *
+     * @param processorName The name the processor is tagged with.
+     * @return The processor metrics.
+     */
+    FilterMetrics forProcessor(String processorName);
+
+    /**
+     * Get the metrics of a <code>&lt;camel:route&gt;</code>.
+     *
+     * @param beanId              The routed beanId.
+     * @param toEndpoint          The endpoint the bean is routed to.
+     * @param conditionStatistics The statistics of the routing condition, or <code>null</code> if there is no condition.
+     * @return The route metrics.
+     */
+    RouteMetrics forRoute(String beanId, String toEndpoint, ConditionStatistics conditionStatistics);
+
+    /**
+     * Get the metrics of the CamelContext, resolving them on first use. No metrics are resolved again on later uses, so
+     * that a <code>MeterRegistry</code> bound after the first use is picked up.
+     *
+     * @param camelContext The CamelContext.
+     * @return The metrics of the CamelContext.
+     */
+    static SmooksMetrics get(final CamelContext camelContext) {
+        return SmooksMetricsResolver.resolve(camelContext);
+    }
+}
\ No newline at end of file
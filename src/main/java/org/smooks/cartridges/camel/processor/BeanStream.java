@@ -0,0 +1,207 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.api.bean.lifecycle.BeanLifecycle;
+
+import javax.xml.transform.Source;
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Lazy {@link Iterator} over the beans of a Smooks execution that is filtered on another thread. Beans are handed over
+ * through a bounded queue: filtering blocks, rather than buffer beans, while the queue is full. A failed execution is
+ * thrown from {@link #hasNext()} once the beans produced before the failure are consumed.
+ * <p/>
+ * Closing the iterator abandons the execution. An iterator that is neither consumed to the end nor closed holds on to
+ * its filtering thread.
+ */
+public class BeanStream implements Iterator<Object>, Closeable {
+
+    private static final Object END = new Object();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final BlockingQueue<Object> queue;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private Object next;
+
+    private BeanStream(final int capacity) {
+        queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Filter the source on the executor and stream the beans created under the beanId, in the order in which their
+     * fragments end.
+     *
+     * @param smooks            The Smooks instance.
+     * @param executionContext  The execution context to filter with.
+     * @param source            The source to filter.
+     * @param beanId            The beanId of the streamed beans.
+     * @param queueSize         The number of beans that can be waiting to be consumed before filtering blocks.
+     * @param executor          The executor to filter on.
+     * @param completionHandler Called on the filtering thread once filtering is over, and before the end of the stream
+     *                          is signalled, with the cause of the failure or <code>null</code>. Filtering abandoned
+     *                          because the stream was closed is not a failure.
+     * @return The bean stream.
+     */
+    public static BeanStream filter(final Smooks smooks, final ExecutionContext executionContext, final Source source, final String beanId,
+                                    final int queueSize, final Executor executor, final Consumer<Throwable> completionHandler) {
+        final BeanStream beanStream = new BeanStream(queueSize);
+        executionContext.getBeanContext().addObserver(event -> {
+            if (event.getLifecycle() == BeanLifecycle.END_FRAGMENT && event.getBeanId().getName().equals(beanId)) {
+                beanStream.offer(event.getBean());
+            }
+        });
+        executor.execute(() -> {
+            Throwable failure = null;
+            try {
+                smooks.filterSource(executionContext, source);
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                try {
+                    completionHandler.accept(beanStream.isClosed() ? null : failure);
+                } finally {
+                    beanStream.complete(failure);
+                }
+            }
+        });
+
+        return beanStream;
+    }
+
+    /**
+     * Signal the end of the execution.
+     *
+     * @param failure The cause of the execution failure, or <code>null</code> if the execution succeeded.
+     */
+    private void complete(final Throwable failure) {
+        this.failure = failure;
+        try {
+            offer(END);
+        } catch (SmooksException e) {
+            // nobody is left to tell
+        }
+    }
+
+    /**
+     * Hand a bean, or the end of the execution, over to the consumer, blocking while the queue is full.
+     *
+     * @param element The bean or {@link #END}.
+     * @throws SmooksException The iterator was closed, or the filtering thread was interrupted, while waiting.
+     */
+    private void offer(final Object element) {
+        try {
+            do {
+                if (closed) {
+                    throw new SmooksException("Bean stream was closed by its consumer.");
+                }
+            } while (!queue.offer(element, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while waiting for the bean stream consumer.", e);
+        }
+    }
+
+    /**
+     * Whether {@link #close()} was called.
+     *
+     * @return <code>true</code> if the iterator is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            if (closed) {
+                return false;
+            }
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SmooksException("Interrupted while waiting for the next bean.", e);
+            }
+        }
+        if (next == END) {
+            if (failure != null) {
+                final Throwable cause = failure;
+                failure = null;
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new SmooksException("Failed to filter the streamed message.", cause);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Object bean = next;
+        next = null;
+        return bean;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+}
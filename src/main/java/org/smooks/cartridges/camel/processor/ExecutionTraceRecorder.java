@@ -0,0 +1,131 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.smooks.api.delivery.event.ExecutionEvent;
+import org.smooks.api.delivery.event.ExecutionEventListener;
+import org.smooks.api.delivery.event.ResourceAwareEvent;
+import org.smooks.engine.delivery.event.FragmentExecutionEvent;
+import org.smooks.engine.delivery.event.ResourceTargetingExecutionEvent;
+import org.smooks.engine.delivery.event.VisitExecutionEvent;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the execution events of a sampled exchange in a compact form: when, what, on which element and by which
+ * visitor. The number of events is bounded so that a large message does not make the trace grow without limit.
+ */
+final class ExecutionTraceRecorder implements ExecutionEventListener {
+    static final int MAX_EVENTS = 10_000;
+
+    private final long startTime;
+    private final List<Event> events = new ArrayList<>();
+    private int droppedEventCount;
+
+    ExecutionTraceRecorder(final long startTime) {
+        this.startTime = startTime;
+    }
+
+    @Override
+    public void onEvent(final ExecutionEvent executionEvent) {
+        if (events.size() == MAX_EVENTS) {
+            droppedEventCount++;
+            return;
+        }
+
+        String element = null;
+        String sequence = null;
+        String resource = null;
+        String error = null;
+        if (executionEvent instanceof FragmentExecutionEvent) {
+            final Object fragment = ((FragmentExecutionEvent<?>) executionEvent).getFragment().unwrap();
+            element = fragment instanceof Node ? ((Node) fragment).getNodeName() : null;
+        }
+        if (executionEvent instanceof VisitExecutionEvent) {
+            final VisitExecutionEvent<?, ?> visitExecutionEvent = (VisitExecutionEvent<?, ?>) executionEvent;
+            sequence = visitExecutionEvent.getSequence().name();
+            resource = visitExecutionEvent.getVisitorBinding().getContentHandler().getClass().getName();
+            error = visitExecutionEvent.getError() != null ? visitExecutionEvent.getError().toString() : null;
+        } else if (executionEvent instanceof ResourceTargetingExecutionEvent) {
+            final ResourceTargetingExecutionEvent<?> targetingExecutionEvent = (ResourceTargetingExecutionEvent<?>) executionEvent;
+            sequence = targetingExecutionEvent.getSequence() != null ? targetingExecutionEvent.getSequence().name() : null;
+        }
+        if (resource == null && executionEvent instanceof ResourceAwareEvent && ((ResourceAwareEvent) executionEvent).getResourceConfig() != null) {
+            resource = ((ResourceAwareEvent) executionEvent).getResourceConfig().getResource();
+        }
+
+        events.add(new Event(System.nanoTime() - startTime, executionEvent.getClass().getSimpleName(), element, sequence, resource, error));
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    List<Event> getEvents() {
+        return events;
+    }
+
+    int getDroppedEventCount() {
+        return droppedEventCount;
+    }
+
+    static final class Event {
+        final long time;
+        final String type;
+        final String element;
+        final String sequence;
+        final String resource;
+        final String error;
+
+        private Event(final long time, final String type, final String element, final String sequence, final String resource, final String error) {
+            this.time = time;
+            this.type = type;
+            this.element = element;
+            this.sequence = sequence;
+            this.resource = resource;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.api.ExecutionContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Traces the exchanges of a {@link SmooksProcessor} to a file of JSON lines, one line per trace.
+ * <p/>
+ * Only 1 in <code>sampleRate</code> exchanges is traced, together with its execution events, and only the traces of
+ * the exchanges whose filtering took at least <code>thresholdMillis</code> are written. The other exchanges cost
+ * nothing but a counter increment. Traces are written on a single thread; when it falls behind by more than
+ * <code>maxPendingTraces</code> traces, new traces are dropped and counted rather than slowing down filtering.
+ */
+final class ExecutionTracer {
+    static final int MAX_PENDING_TRACES = 1000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionTracer.class);
+
+    private final CamelContext camelContext;
+    private final Path tracePath;
+    private final int sampleRate;
+    private final long thresholdNanos;
+    private final int maxPendingTraces;
+    private final String processorName;
+    private final AtomicLong exchangeCount = new AtomicLong();
+    private final AtomicInteger pendingTraceCount = new AtomicInteger();
+    private final AtomicLong droppedTraceCount = new AtomicLong();
+    private volatile ExecutorService writerExecutorService;
+    private BufferedWriter writer;
+
+    ExecutionTracer(final CamelContext camelContext, final String tracePath, final int sampleRate, final long thresholdMillis, final String processorName) {
+        this(camelContext, tracePath, sampleRate, thresholdMillis, processorName, MAX_PENDING_TRACES);
+    }
+
+    ExecutionTracer(final CamelContext camelContext, final String tracePath, final int sampleRate, final long thresholdMillis, final String processorName, final int maxPendingTraces) {
+        this.camelContext = camelContext;
+        this.maxPendingTraces = maxPendingTraces;
+        this.tracePath = Paths.get(tracePath);
+        this.sampleRate = sampleRate;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.processorName = processorName;
+    }
+
+    void start() throws IOException {
+        if (tracePath.getParent() != null) {
+            Files.createDirectories(tracePath.getParent());
+        }
+        writer = Files.newBufferedWriter(tracePath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        writerExecutorService = camelContext.getExecutorServiceManager().newSingleThreadExecutor(this, "SmooksTraceWriter");
+    }
+
+    void stop() {
+        final ExecutorService stoppedWriterExecutorService = writerExecutorService;
+        if (stoppedWriterExecutorService != null) {
+            // exchanges that end from now on are not traced
+            writerExecutorService = null;
+            camelContext.getExecutorServiceManager().shutdownGraceful(stoppedWriterExecutorService);
+        }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close execution trace file [{}]", tracePath, e);
+            }
+            writer = null;
+        }
+        if (droppedTraceCount.get() > 0) {
+            LOGGER.warn("Dropped {} execution traces of {} because they were produced faster than they could be written", droppedTraceCount.get(), processorName);
+        }
+    }
+
+    /**
+     * Begin tracing an exchange, recording its execution events, if it is sampled.
+     *
+     * @param executionContext The execution context the exchange is filtered with.
+     * @return The trace recorder, or <code>null</code> if the exchange is not sampled.
+     */
+    ExecutionTraceRecorder begin(final ExecutionContext executionContext) {
+        if (sampleRate < 1 || exchangeCount.getAndIncrement() % sampleRate != 0) {
+            return null;
+        }
+        final ExecutionTraceRecorder executionTraceRecorder = new ExecutionTraceRecorder(System.nanoTime());
+        executionContext.getContentDeliveryRuntime().addExecutionEventListener(executionTraceRecorder);
+        return executionTraceRecorder;
+    }
+
+    /**
+     * @return The number of traces dropped because the trace writer fell behind.
+     */
+    long getDroppedTraceCount() {
+        return droppedTraceCount.get();
+    }
+
+    /**
+     * End tracing an exchange, writing its trace if filtering took at least the threshold. Does nothing once the tracer
+     * is stopped.
+     *
+     * @param executionTraceRecorder The recorder returned by {@link #begin(ExecutionContext)}.
+     * @param exchange               The traced exchange.
+     * @param failed                 Whether the exchange failed to filter.
+     */
+    void end(final ExecutionTraceRecorder executionTraceRecorder, final Exchange exchange, final boolean failed) {
+        final long duration = System.nanoTime() - executionTraceRecorder.getStartTime();
+        final ExecutorService traceWriterExecutorService = writerExecutorService;
+        if (duration < thresholdNanos || traceWriterExecutorService == null) {
+            return;
+        }
+        if (pendingTraceCount.incrementAndGet() > maxPendingTraces) {
+            pendingTraceCount.decrementAndGet();
+            if (droppedTraceCount.incrementAndGet() == 1) {
+                LOGGER.warn("Dropping execution traces of {} because they are produced faster than they can be written", processorName);
+            }
+            return;
+        }
+        final String exchangeId = exchange.getExchangeId();
+        final Instant timestamp = Instant.now();
+        try {
+            traceWriterExecutorService.execute(() -> {
+                try {
+                    write(toJson(executionTraceRecorder, exchangeId, timestamp, duration, failed));
+                } finally {
+                    pendingTraceCount.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // stopped in the meantime
+            pendingTraceCount.decrementAndGet();
+        }
+    }
+
+    private void write(final String trace) {
+        try {
+            writer.write(trace);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write execution trace to [{}]", tracePath, e);
+        }
+    }
+
+    private String toJson(final ExecutionTraceRecorder executionTraceRecorder, final String exchangeId, final Instant timestamp, final long duration, final boolean failed) {
+        final StringBuilder json = new StringBuilder(256);
+        json.append("{\"timestamp\":\"").append(timestamp).append('"');
+        appendField(json, "processor", processorName);
+        appendField(json, "exchangeId", exchangeId);
+        json.append(",\"duration\":").append(duration);
+        json.append(",\"failed\":").append(failed);
+        if (!executionTraceRecorder.getEvents().isEmpty()) {
+            json.append(",\"events\":[");
+            boolean first = true;
+            for (ExecutionTraceRecorder.Event event : executionTraceRecorder.getEvents()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append("{\"time\":").append(event.time);
+                appendField(json, "type", event.type);
+                appendField(json, "element", event.element);
+                appendField(json, "sequence", event.sequence);
+                appendField(json, "resource", event.resource);
+                appendField(json, "error", event.error);
+                json.append('}');
+            }
+            json.append(']');
+            if (executionTraceRecorder.getDroppedEventCount() > 0) {
+                json.append(",\"droppedEvents\":").append(executionTraceRecorder.getDroppedEventCount());
+            }
+        }
+
+        return json.append('}').toString();
+    }
+
+    private static void appendField(final StringBuilder json, final String name, final String value) {
+        if (value == null) {
+            return;
+        }
+        json.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,213 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.smooks.Smooks;
+import org.smooks.api.SmooksException;
+import org.smooks.engine.lookup.ExportsLookup;
+import org.smooks.io.payload.Export;
+import org.smooks.io.payload.Exports;
+import org.smooks.io.payload.ResultExtractor;
+import org.smooks.io.payload.StringResult;
+
+import javax.xml.transform.Result;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * The {@link Exports} of a Smooks instance resolved once, together with what it takes to create and extract their
+ * results, so that filtering an exchange neither looks up the exports in the registry nor creates results through
+ * reflection.
+ * <p/>
+ * A {@link StringResult} is reused by a later filtering as long as its buffer stays below
+ * {@link #MAX_REUSED_STRING_RESULT_CAPACITY} characters and it was only extracted as a <code>String</code>: a result
+ * that escapes, e.g. set as the body by an overridden hook, is never reused. Every {@link #createResults()} must be
+ * followed by a {@link #release(Result[], Object)} once the results are extracted, and the owner calls
+ * {@link #clear()} when it stops so that the reusable results do not outlive it.
+ */
+public final class ExportResults {
+    public static final int MAX_REUSED_STRING_RESULT_CAPACITY = 64 * 1024;
+    public static final int MAX_REUSED_STRING_RESULTS = Runtime.getRuntime().availableProcessors();
+
+    private final Exports exports;
+    private final Export[] resultExports;
+    private final Constructor<? extends Result>[] resultConstructors;
+    private final int stringResultIndex;
+    private final Queue<StringResult> reusableStringResults = new ArrayBlockingQueue<>(MAX_REUSED_STRING_RESULTS);
+    private volatile boolean cleared;
+
+    @SuppressWarnings("unchecked")
+    public ExportResults(final Exports exports) {
+        this.exports = exports;
+        final List<Export> exportList = new ArrayList<>(exports.getExports());
+        resultExports = exportList.toArray(new Export[0]);
+        resultConstructors = new Constructor[resultExports.length];
+        int stringResultIndex = -1;
+        for (int i = 0; i < resultExports.length; i++) {
+            final Class<?> resultType = resultExports[i].getType();
+            try {
+                resultConstructors[i] = (Constructor<? extends Result>) resultType.getConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new SmooksException("Could not find a no-arg constructor for result type [" + resultType.getName() + "]", e);
+            }
+            if (resultType == StringResult.class) {
+                stringResultIndex = i;
+            }
+        }
+        this.stringResultIndex = stringResultIndex;
+    }
+
+    /**
+     * @param smooks The Smooks instance.
+     * @return The export results of the Smooks instance.
+     */
+    public static ExportResults of(final Smooks smooks) {
+        // the exports are only complete once the content delivery configuration is initialised
+        smooks.createExecutionContext();
+        return new ExportResults(smooks.getApplicationContext().getRegistry().lookup(new ExportsLookup()));
+    }
+
+    public Exports getExports() {
+        return exports;
+    }
+
+    public boolean hasExports() {
+        return resultExports.length > 0;
+    }
+
+    /**
+     * @return A result for each export, in the same order as {@link Exports#getExports()}.
+     */
+    public Result[] createResults() {
+        final Result[] results = new Result[resultExports.length];
+        for (int i = 0; i < results.length; i++) {
+            if (i == stringResultIndex) {
+                final StringResult stringResult = reusableStringResults.poll();
+                if (stringResult != null) {
+                    results[i] = stringResult;
+                    continue;
+                }
+            }
+            try {
+                results[i] = resultConstructors[i].newInstance();
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new SmooksException("Could not create instance for result type [" + resultExports[i].getType().getName() + "]", e);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Extract the results like {@link Exports#extractResults(Result[], Exports)} does.
+     *
+     * @param results The results created by {@link #createResults()}.
+     * @return The extracted result if there is only one, otherwise the list of extracted results.
+     */
+    public Object extractResults(final Result[] results) {
+        if (results.length == 1) {
+            return extractResult(results[0], resultExports[0]);
+        }
+        final List<Object> objects = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            objects.add(extractResult(results[i], resultExports[i]));
+        }
+
+        return objects;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object extractResult(final Result result, final Export export) {
+        if (result instanceof ResultExtractor) {
+            return ((ResultExtractor) result).extractFromResult(result, export);
+        }
+        return result;
+    }
+
+    /**
+     * Hand back the results once they are extracted so that the reusable ones can be reused.
+     *
+     * @param results   The results created by {@link #createResults()}.
+     * @param extracted What was taken from the results, e.g. the message body they were set on. The
+     *                  {@link StringResult} is only reused when this holds the <code>String</code> extracted from it.
+     */
+    public void release(final Result[] results, final Object extracted) {
+        if (stringResultIndex < 0 || cleared || !isExtractedAsString(extracted)) {
+            return;
+        }
+        final StringResult stringResult = (StringResult) results[stringResultIndex];
+        final StringWriter stringWriter = (StringWriter) stringResult.getWriter();
+        if (stringWriter.getBuffer().capacity() <= MAX_REUSED_STRING_RESULT_CAPACITY) {
+            stringWriter.getBuffer().setLength(0);
+            reusableStringResults.offer(stringResult);
+        }
+    }
+
+    /**
+     * Stop reusing results and drop the ones kept for reuse.
+     */
+    public void clear() {
+        cleared = true;
+        reusableStringResults.clear();
+    }
+
+    private boolean isExtractedAsString(final Object extracted) {
+        if (resultExports.length == 1) {
+            return extracted instanceof String;
+        }
+        if (extracted instanceof List && ((List<?>) extracted).size() == resultExports.length) {
+            for (Object object : (List<?>) extracted) {
+                if (object instanceof Result) {
+                    return false;
+                }
+            }
+            return ((List<?>) extracted).get(stringResultIndex) instanceof String;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,257 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link Reader} over the serialised result of a Smooks execution that is filtered on another thread. The result is
+ * handed over in chunks of {@link #CHUNK_SIZE} characters through a bounded queue, so that the next step of a route
+ * (e.g., XSLT, a validator or another Smooks endpoint) parses the result while it is being written instead of waiting
+ * for, and then copying, a complete String. A failed execution is thrown from {@link #read(char[], int, int)} once
+ * the result written before the failure is read.
+ * <p/>
+ * Closing the reader abandons the execution. A reader that is neither read to the end nor closed holds on to its
+ * filtering thread.
+ */
+public class ResultPipe extends Reader {
+
+    public static final int CHUNK_SIZE = 8 * 1024;
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final CharBuffer END = CharBuffer.allocate(0);
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final BlockingQueue<CharBuffer> queue;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private CharBuffer chunk;
+
+    private ResultPipe(final int capacity) {
+        queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Filter the source on the executor and pipe the serialised result.
+     *
+     * @param smooks            The Smooks instance.
+     * @param executionContext  The execution context to filter with.
+     * @param source            The source to filter.
+     * @param capacity          The number of chunks that can be waiting to be read before filtering blocks.
+     * @param executor          The executor to filter on.
+     * @param completionHandler Called on the filtering thread once filtering is over, and before the end of the result
+     *                          is signalled, with the cause of the failure or <code>null</code>. Filtering abandoned
+     *                          because the reader was closed is not a failure.
+     * @return The reader of the result.
+     */
+    public static ResultPipe filter(final Smooks smooks, final ExecutionContext executionContext, final Source source, final int capacity,
+                                    final Executor executor, final Consumer<Throwable> completionHandler) {
+        final ResultPipe resultPipe = new ResultPipe(capacity);
+        executor.execute(() -> {
+            final PipeWriter pipeWriter = resultPipe.new PipeWriter();
+            Throwable failure = null;
+            try {
+                smooks.filterSource(executionContext, source, new StreamResult(pipeWriter));
+                pipeWriter.send();
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                try {
+                    completionHandler.accept(resultPipe.closed ? null : failure);
+                } finally {
+                    resultPipe.complete(failure);
+                }
+            }
+        });
+
+        return resultPipe;
+    }
+
+    /**
+     * Signal the end of the result.
+     *
+     * @param failure The cause of the execution failure, or <code>null</code> if the execution succeeded.
+     */
+    private void complete(final Throwable failure) {
+        this.failure = failure;
+        try {
+            offer(END);
+        } catch (IOException e) {
+            // nobody is left to tell
+        }
+    }
+
+    private void offer(final CharBuffer element) throws IOException {
+        try {
+            do {
+                if (closed) {
+                    throw new IOException("Result pipe was closed by its reader.");
+                }
+            } while (!queue.offer(element, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the result pipe reader.");
+        }
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (chunk == null || !chunk.hasRemaining()) {
+            if (chunk == END || closed) {
+                return -1;
+            }
+            try {
+                chunk = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the piped result.");
+            }
+            if (chunk == END) {
+                if (failure != null) {
+                    final Throwable cause = failure;
+                    failure = null;
+                    throw new IOException("Failed to filter the piped message.", cause);
+                }
+                return -1;
+            }
+        }
+        final int count = Math.min(len, chunk.remaining());
+        chunk.get(cbuf, off, count);
+
+        return count;
+    }
+
+    /**
+     * Whether {@link #close()} was called.
+     *
+     * @return <code>true</code> if the reader is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    /**
+     * Buffers the characters written by Smooks into chunks. Smooks flushes its result as it goes, so flushing does not
+     * hand the buffered characters over: only full chunks are, plus the last one once filtering is over.
+     */
+    private final class PipeWriter extends Writer {
+        private char[] buffer = new char[CHUNK_SIZE];
+        private int length;
+
+        @Override
+        public void write(final char[] cbuf, int off, int len) throws IOException {
+            while (len > 0) {
+                final int count = Math.min(len, buffer.length - length);
+                System.arraycopy(cbuf, off, buffer, length, count);
+                length += count;
+                off += count;
+                len -= count;
+                if (length == buffer.length) {
+                    send();
+                }
+            }
+        }
+
+        @Override
+        public void write(final String str, int off, int len) throws IOException {
+            while (len > 0) {
+                final int count = Math.min(len, buffer.length - length);
+                str.getChars(off, off + count, buffer, length);
+                length += count;
+                off += count;
+                len -= count;
+                if (length == buffer.length) {
+                    send();
+                }
+            }
+        }
+
+        @Override
+        public void write(final int c) throws IOException {
+            buffer[length++] = (char) c;
+            if (length == buffer.length) {
+                send();
+            }
+        }
+
+        private void send() throws IOException {
+            if (length > 0) {
+                offer(CharBuffer.wrap(buffer, 0, length));
+                // the reader owns the sent chunk
+                buffer = new char[CHUNK_SIZE];
+                length = 0;
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
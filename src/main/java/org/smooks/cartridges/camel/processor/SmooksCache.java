@@ -0,0 +1,196 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.support.service.ServiceSupport;
+import org.smooks.Smooks;
+import org.smooks.SmooksFactory;
+import org.smooks.api.SmooksException;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Smooks instances shared by the {@link SmooksProcessor}s and
+ * {@link org.smooks.cartridges.camel.dataformat.SmooksDataFormat}s of a {@link CamelContext} that are configured
+ * with the same Smooks configuration URI.
+ * <p/>
+ * A configuration (e.g., with a DFDL schema to compile) is loaded once however many endpoints use it. Instances are
+ * reference counted: an instance is closed once every user has released it, or when the CamelContext stops.
+ */
+public final class SmooksCache extends ServiceSupport {
+    private static final Object LOCK = new Object();
+
+    private final CamelContext camelContext;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private SmooksCache(final CamelContext camelContext) {
+        this.camelContext = camelContext;
+    }
+
+    /**
+     * Get the cache of the CamelContext, creating it on first use.
+     *
+     * @param camelContext The CamelContext.
+     * @return The CamelContext's cache.
+     */
+    public static SmooksCache get(final CamelContext camelContext) {
+        synchronized (LOCK) {
+            SmooksCache smooksCache = camelContext.getCamelContextExtension().getContextPlugin(SmooksCache.class);
+            if (smooksCache == null) {
+                smooksCache = new SmooksCache(camelContext);
+                try {
+                    camelContext.addService(smooksCache, true, true);
+                } catch (Exception e) {
+                    throw new SmooksException("Failed to start the Smooks cache of CamelContext '" + camelContext.getName() + "'.", e);
+                }
+                camelContext.getCamelContextExtension().addContextPlugin(SmooksCache.class, smooksCache);
+            }
+
+            return smooksCache;
+        }
+    }
+
+    /**
+     * Get the Smooks instance of the configuration, loading the configuration if no one else is using it.
+     * Every acquisition must be followed by a {@link #release(String)}.
+     *
+     * @param configUri The Smooks configuration URI.
+     * @return The shared Smooks instance.
+     */
+    public Smooks acquire(final String configUri) {
+        while (true) {
+            final Entry entry;
+            synchronized (this) {
+                entry = entries.computeIfAbsent(configUri, k -> new Entry());
+                entry.referenceCount++;
+            }
+
+            // loading the configuration may take a while so only users of the same configuration wait
+            synchronized (entry) {
+                if (entry.failed) {
+                    // the entry was dropped while waiting for it: start over with a fresh entry
+                    continue;
+                }
+                if (entry.smooks == null) {
+                    try {
+                        entry.smooks = createSmooks(configUri);
+                    } catch (IOException | SAXException | RuntimeException e) {
+                        entry.failed = true;
+                        synchronized (this) {
+                            entries.remove(configUri, entry);
+                        }
+                        throw new SmooksException("Failed to load Smooks configuration [" + configUri + "].", e);
+                    }
+                }
+                return entry.smooks;
+            }
+        }
+    }
+
+    /**
+     * Release the Smooks instance of the configuration, closing it if it is no longer in use.
+     *
+     * @param configUri The Smooks configuration URI.
+     */
+    public void release(final String configUri) {
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.get(configUri);
+            if (entry == null || --entry.referenceCount > 0) {
+                return;
+            }
+            entries.remove(configUri);
+        }
+
+        synchronized (entry) {
+            if (entry.smooks != null) {
+                entry.smooks.close();
+            }
+        }
+    }
+
+    /**
+     * @param configUri The Smooks configuration URI.
+     * @return The number of users of the configuration's Smooks instance.
+     */
+    public synchronized int getReferenceCount(final String configUri) {
+        final Entry entry = entries.get(configUri);
+        return entry != null ? entry.referenceCount : 0;
+    }
+
+    private Smooks createSmooks(final String configUri) throws IOException, SAXException {
+        final SmooksFactory smooksFactory = (SmooksFactory) camelContext.getRegistry().lookupByName(SmooksFactory.class.getName());
+        final Smooks smooks = smooksFactory != null ? smooksFactory.createInstance(configUri) : new Smooks(configUri);
+        smooks.getApplicationContext().getRegistry().registerObject(CamelContext.class, camelContext);
+
+        return smooks;
+    }
+
+    @Override
+    protected void doStop() {
+        final List<Entry> stoppedEntries;
+        synchronized (this) {
+            stoppedEntries = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        for (Entry entry : stoppedEntries) {
+            synchronized (entry) {
+                if (entry.smooks != null) {
+                    entry.smooks.close();
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private int referenceCount;
+        private Smooks smooks;
+        private boolean failed;
+    }
+}
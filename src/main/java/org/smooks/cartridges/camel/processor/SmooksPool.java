@@ -0,0 +1,121 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.smooks.Smooks;
+import org.smooks.api.SmooksException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pooled Smooks instances of a {@link SmooksProcessor}.
+ * <p/>
+ * Closing the pool closes the idle instances straight away, and the checked-out ones as they are returned, so that the
+ * instances still in use by the exchanges in flight when the processor stops are closed too.
+ */
+final class SmooksPool {
+    private static final long CLOSED_CHECK_INTERVAL_MILLIS = 100;
+
+    private final BlockingQueue<Smooks> idleSmooks;
+    private volatile boolean closed;
+
+    SmooksPool(final int size) {
+        idleSmooks = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * @return An idle instance, or <code>null</code> if they are all checked out.
+     */
+    Smooks poll() {
+        return idleSmooks.poll();
+    }
+
+    /**
+     * Wait for an instance to be returned.
+     *
+     * @return The instance.
+     * @throws InterruptedException Interrupted while waiting.
+     * @throws SmooksException      The pool was closed while waiting.
+     */
+    Smooks take() throws InterruptedException {
+        while (true) {
+            final Smooks smooks = idleSmooks.poll(CLOSED_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (smooks != null) {
+                return smooks;
+            }
+            if (closed) {
+                throw new SmooksException("Smooks pool is closed.");
+            }
+        }
+    }
+
+    Smooks peek() {
+        return idleSmooks.peek();
+    }
+
+    /**
+     * Return an instance to the pool, closing it if the pool was closed in the meantime.
+     *
+     * @param smooks The instance.
+     */
+    void add(final Smooks smooks) {
+        idleSmooks.add(smooks);
+        // whichever of this thread and the closing thread removes the instance closes it
+        if (closed && idleSmooks.remove(smooks)) {
+            smooks.close();
+        }
+    }
+
+    /**
+     * Close the idle instances and mark the pool as closed so that the checked-out instances are closed on return.
+     */
+    void close() {
+        closed = true;
+        Smooks smooks;
+        while ((smooks = idleSmooks.poll()) != null) {
+            smooks.close();
+        }
+    }
+}
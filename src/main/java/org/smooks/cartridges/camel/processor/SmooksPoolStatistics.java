@@ -0,0 +1,104 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the Smooks instance pool of a {@link SmooksProcessor}.
+ */
+public class SmooksPoolStatistics {
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder totalWaitTimeNanos = new LongAdder();
+    private final AtomicLong maxWaitTimeNanos = new AtomicLong();
+
+    void acquired() {
+        acquireCount.increment();
+    }
+
+    void acquired(final long waitTimeNanos) {
+        acquireCount.increment();
+        waitCount.increment();
+        totalWaitTimeNanos.add(waitTimeNanos);
+        maxWaitTimeNanos.accumulateAndGet(waitTimeNanos, Math::max);
+    }
+
+    /**
+     * @return The number of Smooks instances taken from the pool.
+     */
+    public long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    /**
+     * @return The number of times an exchange had to wait for a Smooks instance to be returned to the pool.
+     */
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    /**
+     * @param timeUnit The unit of the returned time.
+     * @return The time spent waiting for Smooks instances, in total.
+     */
+    public long getTotalWaitTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(totalWaitTimeNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit The unit of the returned time.
+     * @return The longest time spent waiting for a Smooks instance.
+     */
+    public long getMaxWaitTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxWaitTimeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "SmooksPoolStatistics[acquireCount=" + getAcquireCount() + ", waitCount=" + getWaitCount() + ", totalWaitTime=" +
+                getTotalWaitTime(TimeUnit.MILLISECONDS) + "ms, maxWaitTime=" + getMaxWaitTime(TimeUnit.MILLISECONDS) + "ms]";
+    }
+}
@@ -45,16 +45,21 @@ package org.smooks.cartridges.camel.processor;
 import org.apache.camel.*;
 import org.apache.camel.attachment.Attachment;
 import org.apache.camel.attachment.AttachmentMessage;
+import org.apache.camel.support.SynchronizationAdapter;
+import org.apache.camel.util.IOHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.smooks.Smooks;
 import org.smooks.SmooksFactory;
 import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
 import org.smooks.api.SmooksException;
 import org.smooks.api.TypedKey;
 import org.smooks.api.delivery.VisitorAppender;
 import org.smooks.api.resource.visitor.Visitor;
-import org.smooks.engine.lookup.ExportsLookup;
+import org.smooks.cartridges.camel.converters.ResultMapTypeConverters;
+import org.smooks.cartridges.camel.metrics.FilterMetrics;
+import org.smooks.cartridges.camel.metrics.SmooksMetrics;
 import org.smooks.engine.report.HtmlReportGenerator;
 import org.smooks.io.payload.Exports;
 import org.w3c.dom.Node;
@@ -65,12 +70,17 @@ import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamSource;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 /**
  * Smooks {@link Processor} for Camel.
@@ -83,10 +93,38 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
     public static final String CAMEL_CHARACTER_ENCODING = "CamelCharsetName";
     private static final Logger LOGGER = LoggerFactory.getLogger(SmooksProcessor.class);
     public static final TypedKey<Exchange> EXCHANGE_TYPED_KEY = TypedKey.of();
+    public static final int DEFAULT_CHANNEL_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_STREAM_QUEUE_SIZE = 100;
+    public static final int DEFAULT_TRACE_SAMPLE_RATE = 100;
 
     private Smooks smooks;
     private String configUri;
     private String reportPath;
+    private FileReadMode fileReadMode = FileReadMode.STREAM;
+    private int readBufferSize;
+    private int poolSize = 1;
+    private SmooksPool smooksPool;
+    private Smooks resultMapConvertersSmooks;
+    private ExportResults exportResults;
+    private FilterMetrics filterMetrics;
+    private String metricsName;
+    private ExecutionContextBinding executionContextBinding = ExecutionContextBinding.HEADER;
+    private String tracePath;
+    private int traceSampleRate = DEFAULT_TRACE_SAMPLE_RATE;
+    private long traceThreshold;
+    private ExecutionTracer executionTracer;
+    private String streamBeanId;
+    private int streamQueueSize = DEFAULT_STREAM_QUEUE_SIZE;
+    private boolean pipeResult;
+    private ExecutorService streamExecutorService;
+    private boolean shareSmooks;
+    private String sharedConfigUri;
+    private boolean lazyStartup;
+    private boolean backgroundStartup;
+    private String warmUpUri;
+    private final SmooksStartup startup;
+    private boolean started;
+    private final SmooksPoolStatistics poolStatistics = new SmooksPoolStatistics();
 
     private Set<VisitorAppender> visitorAppenders = new HashSet<>();
     private Map<String, Visitor> selectorVisitorMap = new HashMap<>();
@@ -95,6 +133,7 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
 
     public SmooksProcessor(final CamelContext camelContext) {
         this.camelContext = camelContext;
+        this.startup = new SmooksStartup(camelContext, this, this::initialize);
     }
 
     public SmooksProcessor(final Smooks smooks, final CamelContext camelContext) {
@@ -108,18 +147,164 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
     }
 
     public void process(final Exchange exchange) {
-        //forward headers
-        exchange.getMessage().setHeaders(exchange.getIn().getHeaders());
-
-        if (attachmentsSupported) {
-            //forward attachments
-            if (exchange.getIn(AttachmentMessage.class).hasAttachments()) {
-                for (Entry<String, Attachment> attachmentObject : exchange.getIn(AttachmentMessage.class).getAttachmentObjects().entrySet()) {
-                    exchange.getMessage(AttachmentMessage.class).addAttachmentObject(attachmentObject.getKey(), attachmentObject.getValue());
+        startup.await();
+        final SmooksPool pool = smooksPool;
+        if (streamBeanId != null) {
+            stream(exchange, pool, (streamingSmooks, executionContext, source, completionHandler) ->
+                    BeanStream.filter(streamingSmooks, executionContext, source, streamBeanId, streamQueueSize, streamExecutorService, completionHandler));
+        } else if (pipeResult) {
+            stream(exchange, pool, (streamingSmooks, executionContext, source, completionHandler) ->
+                    ResultPipe.filter(streamingSmooks, executionContext, source, ResultPipe.DEFAULT_CAPACITY, streamExecutorService, completionHandler));
+        } else if (pool == null) {
+            process(exchange, smooks);
+        } else {
+            final Smooks pooledSmooks = acquireSmooks(pool);
+            try {
+                process(exchange, pooledSmooks);
+            } finally {
+                pool.add(pooledSmooks);
+            }
+        }
+    }
+
+    private Smooks acquireSmooks(final SmooksPool pool) {
+        final Smooks pooledSmooks = pool.poll();
+        if (pooledSmooks != null) {
+            poolStatistics.acquired();
+            return pooledSmooks;
+        }
+
+        final long waitStart = System.nanoTime();
+        try {
+            return pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while waiting for a pooled Smooks instance.", e);
+        } finally {
+            poolStatistics.acquired(System.nanoTime() - waitStart);
+        }
+    }
+
+    private void stream(final Exchange exchange, final SmooksPool pool, final StreamingFilter streamingFilter) {
+        final Smooks streamingSmooks = pool == null ? smooks : acquireSmooks(pool);
+        final Closeable stream;
+        try {
+            forwardMessage(exchange);
+            final ExecutionContext executionContext = createExecutionContext(exchange, streamingSmooks);
+            // the processor may be stopped, and its tracer with it, before filtering is over
+            final ExecutionTracer streamExecutionTracer = executionTracer;
+            final ExecutionTraceRecorder executionTraceRecorder = streamExecutionTracer != null ? streamExecutionTracer.begin(executionContext) : null;
+            final Source source = getSource(exchange);
+            final long filterStart = System.nanoTime();
+            stream = streamingFilter.filter(streamingSmooks, executionContext, source, failure -> {
+                try {
+                    if (failure != null) {
+                        filterMetrics.recordFailure();
+                    } else if (filterMetrics.isEnabled()) {
+                        filterMetrics.recordPhase(FilterMetrics.Phase.FILTER, System.nanoTime() - filterStart);
+                    }
+                    if (executionTraceRecorder != null) {
+                        streamExecutionTracer.end(executionTraceRecorder, exchange, failure != null);
+                    }
+                } finally {
+                    executionContext.remove(EXCHANGE_TYPED_KEY);
+                    if (pool != null) {
+                        pool.add(streamingSmooks);
+                    }
                 }
+            });
+        } catch (RuntimeException e) {
+            if (pool != null) {
+                pool.add(streamingSmooks);
             }
+            filterMetrics.recordFailure();
+            throw e;
         }
+        // frees the filtering thread should the route not consume the whole stream
+        exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+            @Override
+            public void onDone(final Exchange exchange) {
+                IOHelper.close(stream);
+            }
+        });
+        exchange.getMessage().setBody(stream);
+    }
+
+    private void process(final Exchange exchange, final Smooks smooks) {
+        forwardMessage(exchange);
 
+        final boolean timed = filterMetrics.isEnabled();
+        long phaseStart = timed ? System.nanoTime() : 0;
+        final ExecutionContext executionContext = createExecutionContext(exchange, smooks);
+        final ExecutionTracer exchangeExecutionTracer = executionTracer;
+        final ExecutionTraceRecorder executionTraceRecorder = exchangeExecutionTracer != null ? exchangeExecutionTracer.begin(executionContext) : null;
+        if (timed) {
+            phaseStart = recordPhase(FilterMetrics.Phase.EXECUTION_CONTEXT, phaseStart);
+        }
+
+        final Object body = exchange.getIn().getBody();
+        boolean failed = true;
+        try {
+            final Source source = getSource(exchange);
+            if (timed) {
+                phaseStart = recordPhase(FilterMetrics.Phase.SOURCE, phaseStart);
+            }
+            if (exportResults.hasExports()) {
+                final Result[] results = exportResults.createResults();
+                try {
+                    smooks.filterSource(executionContext, source, results);
+                    if (timed) {
+                        phaseStart = recordPhase(FilterMetrics.Phase.FILTER, phaseStart);
+                    }
+                    setResultOnBody(exportResults.getExports(), results, exchange);
+                    if (timed) {
+                        recordPhase(FilterMetrics.Phase.RESULT, phaseStart);
+                    }
+                } finally {
+                    exportResults.release(results, exchange.getMessage().getBody());
+                }
+            } else {
+                smooks.filterSource(executionContext, source);
+                if (timed) {
+                    recordPhase(FilterMetrics.Phase.FILTER, phaseStart);
+                }
+            }
+            failed = false;
+        } catch (RuntimeException e) {
+            filterMetrics.recordFailure();
+            throw e;
+        } finally {
+            if (executionTraceRecorder != null) {
+                exchangeExecutionTracer.end(executionTraceRecorder, exchange, failed || exchange.getException() != null);
+            }
+        }
+        if (exchange.getException() != null) {
+            filterMetrics.recordFailure();
+        } else if (timed) {
+            filterMetrics.recordSize(sizeOf(body), exportResults.hasExports() ? sizeOf(exchange.getMessage().getBody()) : -1);
+        }
+
+        executionContext.remove(EXCHANGE_TYPED_KEY);
+    }
+
+    private void forwardMessage(final Exchange exchange) {
+        // the in message is also the message the result is set on unless an out message was created beforehand
+        if (exchange.getMessage() != exchange.getIn()) {
+            //forward headers
+            exchange.getMessage().setHeaders(exchange.getIn().getHeaders());
+
+            if (attachmentsSupported) {
+                //forward attachments
+                if (exchange.getIn(AttachmentMessage.class).hasAttachments()) {
+                    for (Entry<String, Attachment> attachmentObject : exchange.getIn(AttachmentMessage.class).getAttachmentObjects().entrySet()) {
+                        exchange.getMessage(AttachmentMessage.class).addAttachmentObject(attachmentObject.getKey(), attachmentObject.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private ExecutionContext createExecutionContext(final Exchange exchange, final Smooks smooks) {
         final ExecutionContext executionContext = smooks.createExecutionContext();
         executionContext.put(EXCHANGE_TYPED_KEY, exchange);
         String charsetName = (String) exchange.getProperty(CAMEL_CHARACTER_ENCODING);
@@ -127,23 +312,40 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
         {
             executionContext.setContentEncoding(charsetName);
         }
-        exchange.getIn().setHeader(SMOOKS_EXECUTION_CONTEXT, executionContext);
+        if (executionContextBinding == ExecutionContextBinding.HEADER) {
+            exchange.getIn().setHeader(SMOOKS_EXECUTION_CONTEXT, executionContext);
+        } else if (executionContextBinding == ExecutionContextBinding.PROPERTY) {
+            exchange.setProperty(SMOOKS_EXECUTION_CONTEXT, executionContext);
+        }
         setupSmooksReporting(executionContext);
+        return executionContext;
+    }
 
-        final Exports exports = smooks.getApplicationContext().getRegistry().lookup(new ExportsLookup());
-        if (exports.hasExports()) {
-            final Result[] results = exports.createResults();
-            smooks.filterSource(executionContext, getSource(exchange), results);
-            setResultOnBody(exports, results, exchange);
-        } else {
-            smooks.filterSource(executionContext, getSource(exchange));
-        }
+    private long recordPhase(final FilterMetrics.Phase phase, final long phaseStart) {
+        final long phaseEnd = System.nanoTime();
+        filterMetrics.recordPhase(phase, phaseEnd - phaseStart);
+        return phaseEnd;
+    }
 
-        executionContext.remove(EXCHANGE_TYPED_KEY);
+    private static long sizeOf(final Object body) {
+        if (body instanceof byte[]) {
+            return ((byte[]) body).length;
+        }
+        if (body instanceof String) {
+            return ((String) body).length();
+        }
+        if (body instanceof WrappedFile && ((WrappedFile<?>) body).getFile() instanceof File) {
+            return ((File) ((WrappedFile<?>) body).getFile()).length();
+        }
+        return -1;
     }
 
     protected void setResultOnBody(final Exports exports, final Result[] results, final Exchange exchange) {
         final Message message = exchange.getMessage();
+        if (exports == exportResults.getExports()) {
+            message.setBody(exportResults.extractResults(results));
+            return;
+        }
         final List<Object> objects = Exports.extractResults(results, exports);
         if (objects.size() == 1) {
             Object value = objects.get(0);
@@ -188,12 +390,30 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
         }
 
         if (payload instanceof WrappedFile) {
-            return new StreamSource((File) exchange.getIn().getBody(WrappedFile.class).getFile());
+            return getFileSource((File) exchange.getIn().getBody(WrappedFile.class).getFile());
         }
 
         return exchange.getIn().getBody(Source.class);
     }
 
+    private Source getFileSource(final File file) {
+        if (fileReadMode == FileReadMode.STREAM && readBufferSize <= 0) {
+            return new StreamSource(file);
+        }
+
+        // Smooks closes the stream once the source is filtered
+        try {
+            switch (fileReadMode) {
+                case CHANNEL:
+                    return new StreamSource(new FileChannelInputStream(file.toPath(), readBufferSize > 0 ? readBufferSize : DEFAULT_CHANNEL_BUFFER_SIZE));
+                default:
+                    return new StreamSource(new BufferedInputStream(Files.newInputStream(file.toPath()), readBufferSize));
+            }
+        } catch (IOException e) {
+            throw new SmooksException("Failed to open file [" + file + "].", e);
+        }
+    }
+
     public String getSmooksConfig() {
         return configUri;
     }
@@ -230,20 +450,260 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
         this.reportPath = reportPath;
     }
 
-    @Override
-    public void start() {
-        try {
-            if (smooks == null) {
-                smooks = createSmooks();
-                if (configUri != null) {
-                    smooks.addResourceConfigs(configUri);
-                }
-                smooks.getApplicationContext().getRegistry().registerObject(CamelContext.class, camelContext);
-            }
+    public int getPoolSize() {
+        return poolSize;
+    }
 
-            addAppenders(smooks, visitorAppenders);
-            addVisitors(smooks, selectorVisitorMap);
+    /**
+     * Set the number of Smooks instances that concurrent exchanges are filtered with. Every instance is created and
+     * warmed up on start. Pooling only applies when <code>this</code> processor creates Smooks from a configuration
+     * URI, and not when a Smooks instance is passed to the constructor or visitors are added with
+     * {@link #addVisitor(Visitor, String)} or {@link #addVisitor(VisitorAppender)}, since every pooled instance would
+     * share the same visitor instances. Instances in use when the processor stops are closed once they are returned.
+     * Defaults to 1.
+     *
+     * @param poolSize The number of Smooks instances.
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public boolean isShareSmooks() {
+        return shareSmooks;
+    }
+
+    /**
+     * Whether to share the Smooks instance with the other processors and data formats of the CamelContext that are
+     * configured with the same Smooks configuration URI (see {@link SmooksCache}), so that the configuration is only
+     * loaded once. Sharing only applies when the Smooks instance is created from a configuration URI, without added
+     * visitors and without pooling. Shared processors also share the registry and state of the Smooks instance, so
+     * sharing is opt-in. Defaults to <code>false</code>.
+     *
+     * @param shareSmooks <code>true</code> to share the Smooks instance.
+     */
+    public void setShareSmooks(boolean shareSmooks) {
+        this.shareSmooks = shareSmooks;
+    }
+
+    public String getMetricsName() {
+        if (metricsName != null) {
+            return metricsName;
+        }
+        return configUri != null ? configUri : "SmooksProcessor";
+    }
+
+    /**
+     * Set the name <code>this</code> processor is tagged with in the {@link SmooksMetrics}. Defaults to the Smooks
+     * configuration URI.
+     *
+     * @param metricsName The processor name.
+     */
+    public void setMetricsName(String metricsName) {
+        this.metricsName = metricsName;
+    }
+
+    public ExecutionContextBinding getExecutionContextBinding() {
+        return executionContextBinding;
+    }
+
+    /**
+     * Set where the Smooks execution context of an exchange is made available once the exchange is filtered. The
+     * execution context keeps the beans it holds from being garbage collected: {@link ExecutionContextBinding#NONE}
+     * lets large bean graphs be collected as soon as filtering is done. Defaults to
+     * {@link ExecutionContextBinding#HEADER}.
+     *
+     * @param executionContextBinding Where the execution context is made available.
+     */
+    public void setExecutionContextBinding(ExecutionContextBinding executionContextBinding) {
+        this.executionContextBinding = executionContextBinding;
+    }
+
+    public String getStreamBeanId() {
+        return streamBeanId;
+    }
+
+    /**
+     * Set the beanId of the beans to stream. The message is then filtered on a separate thread and the body is set,
+     * straight away, to a {@link BeanStream} iterator over the beans created under that beanId, in the order in which
+     * they are completed. Exports are ignored. A streaming splitter (e.g., <code>split(body()).streaming()</code>)
+     * consumes the beans while the message is being filtered, in constant memory.
+     *
+     * @param streamBeanId The beanId of the streamed beans.
+     */
+    public void setStreamBeanId(String streamBeanId) {
+        this.streamBeanId = streamBeanId;
+    }
+
+    public boolean isPipeResult() {
+        return pipeResult;
+    }
+
+    /**
+     * Set whether to pipe the serialised result to the next step of the route. The message is then filtered on a
+     * separate thread and the body is set, straight away, to a {@link ResultPipe} reader over the result while it is
+     * being written. Exports are ignored. Chaining the endpoint into another XML step (e.g., XSLT, a validator or
+     * another Smooks endpoint) then neither holds the complete result in memory nor waits for it before parsing it.
+     *
+     * @param pipeResult <code>true</code> to pipe the result.
+     */
+    public void setPipeResult(boolean pipeResult) {
+        this.pipeResult = pipeResult;
+    }
+
+    public int getStreamQueueSize() {
+        return streamQueueSize;
+    }
 
+    /**
+     * Set the number of streamed beans that can be waiting to be consumed before filtering blocks. Only applies when a
+     * {@link #setStreamBeanId(String) streamBeanId} is set. Defaults to {@link #DEFAULT_STREAM_QUEUE_SIZE}.
+     *
+     * @param streamQueueSize The maximum number of unconsumed beans.
+     */
+    public void setStreamQueueSize(int streamQueueSize) {
+        this.streamQueueSize = streamQueueSize;
+    }
+
+    public String getTracePath() {
+        return tracePath;
+    }
+
+    /**
+     * Set the file that execution traces are appended to, as JSON lines. Unlike the HTML execution report (see
+     * {@link #setReportPath(String)}), traces are cheap enough to be written in production: only sampled exchanges
+     * (see {@link #setTraceSampleRate(int)}) are traced, only slow exchanges (see {@link #setTraceThreshold(long)})
+     * are written, and they are written asynchronously. Traces the writer cannot keep up with are dropped and counted
+     * (see {@link #getDroppedTraceCount()}). Processors should not share a trace file.
+     *
+     * @param tracePath The trace file path.
+     */
+    public void setTracePath(String tracePath) {
+        this.tracePath = tracePath;
+    }
+
+    public int getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    /**
+     * Set how many exchanges go by for one exchange that is traced, together with its execution events. Exchanges
+     * that are not sampled are not traced at all, and 0 traces no exchange. Defaults to
+     * {@link #DEFAULT_TRACE_SAMPLE_RATE}, as tracing every exchange is too costly for production.
+     *
+     * @param traceSampleRate 1 in <code>traceSampleRate</code> exchanges is traced.
+     */
+    public void setTraceSampleRate(int traceSampleRate) {
+        this.traceSampleRate = traceSampleRate;
+    }
+
+    public long getTraceThreshold() {
+        return traceThreshold;
+    }
+
+    /**
+     * @return The number of execution traces dropped since start because they were produced faster than they could
+     * be written, or 0 when tracing is off.
+     */
+    public long getDroppedTraceCount() {
+        final ExecutionTracer currentExecutionTracer = executionTracer;
+        return currentExecutionTracer != null ? currentExecutionTracer.getDroppedTraceCount() : 0;
+    }
+
+    /**
+     * Set how long, in milliseconds, filtering a sampled exchange must take for its trace to be written. Defaults to 0,
+     * that is, every sampled exchange.
+     *
+     * @param traceThreshold The trace threshold in milliseconds.
+     */
+    public void setTraceThreshold(long traceThreshold) {
+        this.traceThreshold = traceThreshold;
+    }
+
+    public boolean isLazyStartup() {
+        return lazyStartup;
+    }
+
+    /**
+     * Whether to create the Smooks instances on the first exchange instead of on start, so that loading a heavy
+     * configuration does not hold up the startup of the CamelContext. Defaults to <code>false</code>.
+     *
+     * @param lazyStartup <code>true</code> to create the Smooks instances on the first exchange.
+     */
+    public void setLazyStartup(boolean lazyStartup) {
+        this.lazyStartup = lazyStartup;
+    }
+
+    public boolean isBackgroundStartup() {
+        return backgroundStartup;
+    }
+
+    /**
+     * Whether to create the Smooks instances on a separate thread when <code>this</code> processor starts. Exchanges
+     * arriving before the instances are ready wait for them. Defaults to <code>false</code>.
+     *
+     * @param backgroundStartup <code>true</code> to create the Smooks instances in the background.
+     */
+    public void setBackgroundStartup(boolean backgroundStartup) {
+        this.backgroundStartup = backgroundStartup;
+    }
+
+    public String getWarmUpUri() {
+        return warmUpUri;
+    }
+
+    /**
+     * Set the URI of a sample message (e.g., <code>classpath:sample.edi</code>) that every Smooks instance filters
+     * once it is created. The results are discarded and the beans of the sample are not routed, but the sample
+     * otherwise goes through the complete configuration, so it should not trigger other visitors that have side
+     * effects. A sample that fails to filter is logged and ignored.
+     *
+     * @param warmUpUri The sample message URI.
+     */
+    public void setWarmUpUri(String warmUpUri) {
+        this.warmUpUri = warmUpUri;
+    }
+
+    /**
+     * @return The statistics of the Smooks instance pool.
+     */
+    public SmooksPoolStatistics getPoolStatistics() {
+        return poolStatistics;
+    }
+
+    public FileReadMode getFileReadMode() {
+        return fileReadMode;
+    }
+
+    /**
+     * Set how file bodies are read. Defaults to {@link FileReadMode#STREAM}.
+     *
+     * @param fileReadMode The file read mode.
+     */
+    public void setFileReadMode(FileReadMode fileReadMode) {
+        this.fileReadMode = fileReadMode;
+    }
+
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    /**
+     * Set the size, in bytes, of the buffer file bodies are read into. Defaults to 8 KB in {@link FileReadMode#STREAM}
+     * mode and {@link #DEFAULT_CHANNEL_BUFFER_SIZE} in {@link FileReadMode#CHANNEL} mode.
+     *
+     * @param readBufferSize The read buffer size.
+     */
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    @Override
+    public synchronized void start() {
+        // Camel starts an endpoint both as a route service and as a producer's dependency
+        if (started) {
+            return;
+        }
+        try {
             InputStream inputStream = null;
             try {
                 inputStream = camelContext.getClassResolver().loadResourceAsStream("META-INF/services/org/apache/camel/other.properties");
@@ -262,13 +722,95 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
                     inputStream.close();
                 }
             }
+            if (streamBeanId != null && pipeResult) {
+                throw new SmooksConfigException(this + " configured with both a 'streamBeanId' and 'pipeResult'. Either stream beans or pipe the result.");
+            }
+            if (streamBeanId != null && streamQueueSize < 1) {
+                throw new SmooksConfigException(this + " configured with a 'streamQueueSize' of " + streamQueueSize + ". 'streamQueueSize' must be greater than 0.");
+            }
+            if (streamBeanId != null || pipeResult) {
+                streamExecutorService = camelContext.getExecutorServiceManager().newCachedThreadPool(this, "SmooksStream");
+            }
+            if (tracePath != null) {
+                executionTracer = new ExecutionTracer(camelContext, tracePath, traceSampleRate, traceThreshold, getMetricsName());
+                executionTracer.start();
+            }
+        } catch (IOException e) {
+            throw new SmooksException(e.getMessage(), e);
+        }
+
+        startup.start(lazyStartup, backgroundStartup);
+        started = true;
+        LOGGER.info(this + " Started");
+    }
 
-            LOGGER.info(this + " Started");
+    private void initialize() {
+        filterMetrics = SmooksMetrics.get(camelContext).forProcessor(getMetricsName());
+        try {
+            if (poolSize > 1) {
+                if (smooks != null) {
+                    throw new SmooksConfigException("Cannot pool a Smooks instance passed to " + this + ". Set the Smooks configuration URI instead.");
+                }
+                if (!visitorAppenders.isEmpty() || !selectorVisitorMap.isEmpty()) {
+                    throw new SmooksConfigException("Cannot pool the visitors added to " + this + " because every pooled Smooks instance would share them. Configure the visitors in the Smooks configuration instead.");
+                }
+                final SmooksPool newSmooksPool = new SmooksPool(poolSize);
+                for (int i = 0; i < poolSize; i++) {
+                    final Smooks pooledSmooks = newSmooks();
+                    // creating an execution context initialises the content delivery configuration and its visitors
+                    pooledSmooks.createExecutionContext();
+                    warmUp(pooledSmooks);
+                    newSmooksPool.add(pooledSmooks);
+                }
+                exportResults = ExportResults.of(newSmooksPool.peek());
+                resultMapConvertersSmooks = newSmooksPool.peek();
+                ResultMapTypeConverters.register(camelContext, resultMapConvertersSmooks);
+                smooksPool = newSmooksPool;
+            } else if (smooks == null && isShareable()) {
+                smooks = SmooksCache.get(camelContext).acquire(configUri);
+                sharedConfigUri = configUri;
+                warmUp(smooks);
+            } else if (smooks == null) {
+                smooks = newSmooks();
+                warmUp(smooks);
+            } else {
+                addAppenders(smooks, visitorAppenders);
+                addVisitors(smooks, selectorVisitorMap);
+                warmUp(smooks);
+            }
+            if (smooks != null) {
+                // exports do not change once Smooks is configured
+                exportResults = ExportResults.of(smooks);
+                resultMapConvertersSmooks = smooks;
+                ResultMapTypeConverters.register(camelContext, resultMapConvertersSmooks);
+            }
         } catch (SAXException | IOException e) {
             throw new SmooksException(e.getMessage(), e);
         }
     }
 
+    private void warmUp(final Smooks warmedUpSmooks) {
+        if (warmUpUri != null) {
+            SmooksStartup.warmUp(camelContext, warmedUpSmooks, warmUpUri);
+        }
+    }
+
+    private boolean isShareable() {
+        return shareSmooks && configUri != null && visitorAppenders.isEmpty() && selectorVisitorMap.isEmpty();
+    }
+
+    private Smooks newSmooks() throws IOException, SAXException {
+        final Smooks newSmooks = createSmooks();
+        if (configUri != null) {
+            newSmooks.addResourceConfigs(configUri);
+        }
+        newSmooks.getApplicationContext().getRegistry().registerObject(CamelContext.class, camelContext);
+        addAppenders(newSmooks, visitorAppenders);
+        addVisitors(newSmooks, selectorVisitorMap);
+
+        return newSmooks;
+    }
+
     private Smooks createSmooks() {
         final SmooksFactory smooksFactory = (SmooksFactory) camelContext.getRegistry().lookupByName(SmooksFactory.class.getName());
         return smooksFactory != null ? smooksFactory.createInstance() : new Smooks();
@@ -284,11 +826,41 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
             smooks.addVisitor(entry.getValue(), entry.getKey());
     }
 
-    public void stop() {
+    public synchronized void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        startup.stop();
+        if (streamExecutorService != null) {
+            // interrupts the executions whose bean streams or piped results are left unconsumed
+            camelContext.getExecutorServiceManager().shutdownNow(streamExecutorService);
+            streamExecutorService = null;
+        }
+        if (executionTracer != null) {
+            executionTracer.stop();
+            executionTracer = null;
+        }
+        if (resultMapConvertersSmooks != null) {
+            ResultMapTypeConverters.unregister(camelContext, resultMapConvertersSmooks);
+            resultMapConvertersSmooks = null;
+        }
+        if (exportResults != null) {
+            exportResults.clear();
+        }
+        if (sharedConfigUri != null) {
+            SmooksCache.get(camelContext).release(sharedConfigUri);
+            sharedConfigUri = null;
+            smooks = null;
+        }
         if (smooks != null) {
             smooks.close();
             smooks = null;
         }
+        if (smooksPool != null) {
+            smooksPool.close();
+            smooksPool = null;
+        }
         LOGGER.info(this + " Stopped");
     }
 
@@ -305,4 +877,9 @@ public class SmooksProcessor implements Processor, Service, CamelContextAware {
         return camelContext;
     }
 
+    @FunctionalInterface
+    private interface StreamingFilter {
+        Closeable filter(Smooks smooks, ExecutionContext executionContext, Source source, Consumer<Throwable> completionHandler);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.support.ResourceHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.api.TypedKey;
+import org.smooks.engine.lookup.ExportsLookup;
+import org.smooks.io.payload.Exports;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Initialises the Smooks instances of a {@link SmooksProcessor} or
+ * {@link org.smooks.cartridges.camel.dataformat.SmooksDataFormat} when it starts, on the first exchange
+ * (lazy startup) or on a separate thread (background startup). In the last two cases, exchanges wait in
+ * {@link #await()} until the initialisation is done.
+ * <p/>
+ * An initialisation that fails is not retried: the exchanges that follow fail with the same cause until the
+ * owner is restarted. Exchanges that arrive once the owner is stopped fail rather than initialise it again.
+ */
+public final class SmooksStartup {
+    /**
+     * Set to <code>true</code> in the execution context of a warm-up sample (see
+     * {@link #warmUp(CamelContext, Smooks, String)}), whose beans are then not routed.
+     */
+    public static final TypedKey<Boolean> WARM_UP_TYPED_KEY = TypedKey.of();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmooksStartup.class);
+
+    private final CamelContext camelContext;
+    private final Object owner;
+    private final Runnable initializer;
+    private volatile CompletableFuture<Void> initialization;
+
+    /**
+     * @param camelContext The CamelContext providing the background startup thread.
+     * @param owner        The processor or data format being initialised.
+     * @param initializer  Creates the owner's Smooks instances.
+     */
+    public SmooksStartup(final CamelContext camelContext, final Object owner, final Runnable initializer) {
+        this.camelContext = camelContext;
+        this.owner = owner;
+        this.initializer = initializer;
+    }
+
+    /**
+     * Initialise now, or schedule the initialisation.
+     *
+     * @param lazyStartup       <code>true</code> to initialise on the first {@link #await()}.
+     * @param backgroundStartup <code>true</code> to initialise on a separate thread.
+     */
+    public synchronized void start(final boolean lazyStartup, final boolean backgroundStartup) {
+        if (lazyStartup) {
+            initialization = null;
+        } else if (backgroundStartup) {
+            final CompletableFuture<Void> backgroundInitialization = new CompletableFuture<>();
+            initialization = backgroundInitialization;
+            camelContext.getExecutorServiceManager().newThread("SmooksStartup", () -> initialize(backgroundInitialization)).start();
+        } else {
+            initializer.run();
+            initialization = CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Wait until the initialisation is done, initialising if this is the first call after a lazy start.
+     *
+     * @throws SmooksException If the initialisation failed.
+     */
+    public void await() {
+        CompletableFuture<Void> awaitedInitialization = initialization;
+        if (awaitedInitialization == null) {
+            boolean initializing = false;
+            synchronized (this) {
+                awaitedInitialization = initialization;
+                if (awaitedInitialization == null) {
+                    awaitedInitialization = new CompletableFuture<>();
+                    initialization = awaitedInitialization;
+                    initializing = true;
+                }
+            }
+            if (initializing) {
+                initialize(awaitedInitialization);
+            }
+        }
+
+        try {
+            awaitedInitialization.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SmooksException) {
+                throw (SmooksException) e.getCause();
+            }
+            throw new SmooksException("Failed to start " + owner + ".", e.getCause());
+        }
+    }
+
+    /**
+     * Wait for an initialisation that is still going on so that the owner can release its Smooks instances. Until the
+     * next {@link #start(boolean, boolean)}, {@link #await()} fails.
+     */
+    public void stop() {
+        final CompletableFuture<Void> stoppedInitialization;
+        synchronized (this) {
+            stoppedInitialization = initialization;
+            initialization = CompletableFuture.failedFuture(new SmooksException(owner + " is stopped."));
+        }
+        if (stoppedInitialization != null) {
+            try {
+                stoppedInitialization.join();
+            } catch (CompletionException e) {
+                LOGGER.debug("Stopping {} whose startup failed", owner, e.getCause());
+            }
+        }
+    }
+
+    private void initialize(final CompletableFuture<Void> pendingInitialization) {
+        try {
+            initializer.run();
+            pendingInitialization.complete(null);
+        } catch (RuntimeException e) {
+            pendingInitialization.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Filter a sample message so that the first exchanges do not pay for class loading, JIT compilation and lazily
+     * built caches (e.g., compiled schemas). The results are discarded and the execution context is marked with
+     * {@link #WARM_UP_TYPED_KEY} so that <code>&lt;camel:route&gt;</code> does not route the sample's beans to live
+     * endpoints. Other visitors with side effects still run. A sample that fails to filter is logged and otherwise
+     * ignored.
+     *
+     * @param camelContext The CamelContext resolving the sample resource.
+     * @param smooks       The Smooks instance to warm up.
+     * @param warmUpUri    The sample resource URI (e.g., <code>classpath:sample.edi</code>).
+     */
+    public static void warmUp(final CamelContext camelContext, final Smooks smooks, final String warmUpUri) {
+        final byte[] sample;
+        try (InputStream inputStream = ResourceHelper.resolveMandatoryResourceAsInputStream(camelContext, warmUpUri)) {
+            sample = inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new SmooksException("Failed to read warm-up message [" + warmUpUri + "].", e);
+        }
+
+        final long start = System.nanoTime();
+        try {
+            final Exports exports = smooks.getApplicationContext().getRegistry().lookup(new ExportsLookup());
+            final ExecutionContext executionContext = smooks.createExecutionContext();
+            executionContext.put(WARM_UP_TYPED_KEY, true);
+            if (exports != null && exports.hasExports()) {
+                smooks.filterSource(executionContext, new StreamSource(new ByteArrayInputStream(sample)), exports.createResults());
+            } else {
+                smooks.filterSource(executionContext, new StreamSource(new ByteArrayInputStream(sample)));
+            }
+            LOGGER.debug("Warmed up Smooks with [{}] in {} ms", warmUpUri, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to warm up Smooks with [{}]", warmUpUri, e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Beans collected by a {@link BeanRouter} during a single Smooks execution, waiting to be routed
+ * together as one <code>List</code>.
+ * <p/>
+ * The headers, correlationId and in-flight exchanges of the batch are taken from the execution context when the
+ * batch is opened, that is, when its first bean is collected: a batch whose timeout expires is routed from the
+ * timeout thread, which must not read the execution context while filtering carries on.
+ * <p/>
+ * A batch is filled on the filtering thread and closed by whichever thread routes it, so a bean is either added
+ * before the batch is closed or rejected.
+ */
+class BeanBatch {
+    private final List<Object> beans;
+    private final Map<String, Object> headers;
+    private final String correlationId;
+    private final InFlightExchanges inFlightExchanges;
+    private volatile ScheduledFuture<?> timeout;
+    private boolean closed;
+
+    BeanBatch(final int batchSize, final Map<String, Object> headers, final String correlationId, final InFlightExchanges inFlightExchanges) {
+        this.beans = new ArrayList<>(batchSize);
+        this.headers = headers;
+        this.correlationId = correlationId;
+        this.inFlightExchanges = inFlightExchanges;
+    }
+
+    /**
+     * @param bean The bean to add.
+     * @return <code>false</code> if the batch is already closed, in which case the bean was not added.
+     */
+    synchronized boolean add(final Object bean) {
+        if (closed) {
+            return false;
+        }
+        beans.add(bean);
+        return true;
+    }
+
+    synchronized int size() {
+        return beans.size();
+    }
+
+    /**
+     * Close the batch so that no more beans can be added, and cancel its timeout.
+     */
+    synchronized void close() {
+        closed = true;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+    }
+
+    synchronized List<Object> getBeans() {
+        return beans;
+    }
+
+    void setTimeout(final ScheduledFuture<?> timeout) {
+        this.timeout = timeout;
+    }
+
+    Map<String, Object> getHeaders() {
+        return headers;
+    }
+
+    String getCorrelationId() {
+        return correlationId;
+    }
+
+    InFlightExchanges getInFlightExchanges() {
+        return inFlightExchanges;
+    }
+}
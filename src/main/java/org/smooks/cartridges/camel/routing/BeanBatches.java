@@ -0,0 +1,126 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.smooks.api.SmooksException;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@link BeanBatch batches} of a {@link BeanRouter} during a single Smooks execution.
+ * <p/>
+ * The open batch is routed by the thread that takes it: the filtering thread once the batch is full or the execution
+ * has finished, or the timeout thread once the batch timeout has expired. The failure of a batch routed on the timeout
+ * thread is kept for the filtering thread to report.
+ */
+class BeanBatches {
+    private final AtomicReference<BeanBatch> openBatch = new AtomicReference<>();
+    private int routingTimedOutBatches;
+    private SmooksException timedOutBatchFailure;
+
+    BeanBatch getOpenBatch() {
+        return openBatch.get();
+    }
+
+    void open(final BeanBatch beanBatch) {
+        openBatch.set(beanBatch);
+    }
+
+    /**
+     * Take the batch so that it can be routed by the calling thread.
+     *
+     * @param beanBatch The batch to take.
+     * @return <code>true</code> if the batch was still open, in which case it is now closed.
+     */
+    boolean take(final BeanBatch beanBatch) {
+        if (openBatch.compareAndSet(beanBatch, null)) {
+            beanBatch.close();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Take the batch whose timeout expired. {@link #timedOutBatchRouted(SmooksException)} must be called once the
+     * batch is routed.
+     *
+     * @param beanBatch The batch to take.
+     * @return <code>true</code> if the batch was still open.
+     */
+    synchronized boolean takeTimedOut(final BeanBatch beanBatch) {
+        if (take(beanBatch)) {
+            routingTimedOutBatches++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param failure The failure routing the timed out batch, or <code>null</code>.
+     */
+    synchronized void timedOutBatchRouted(final SmooksException failure) {
+        if (failure != null && timedOutBatchFailure == null) {
+            timedOutBatchFailure = failure;
+        }
+        routingTimedOutBatches--;
+        notifyAll();
+    }
+
+    /**
+     * Wait for the timed out batches being routed.
+     *
+     * @throws InterruptedException Interrupted while waiting.
+     */
+    synchronized void awaitTimedOutBatches() throws InterruptedException {
+        while (routingTimedOutBatches > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * @return The first failure routing a timed out batch, or <code>null</code>.
+     */
+    synchronized SmooksException getTimedOutBatchFailure() {
+        return timedOutBatchFailure;
+    }
+}
@@ -45,36 +45,81 @@ package org.smooks.cartridges.camel.routing;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.apache.camel.ProducerTemplate;
+import org.apache.camel.support.CamelContextHelper;
+import org.apache.camel.support.DefaultExchange;
 import org.smooks.api.ApplicationContext;
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.SmooksConfigException;
 import org.smooks.api.SmooksException;
+import org.smooks.api.TypedKey;
 import org.smooks.api.delivery.ordering.Consumer;
 import org.smooks.api.lifecycle.PostExecutionLifecycle;
 import org.smooks.api.lifecycle.PreExecutionLifecycle;
 import org.smooks.api.resource.config.ResourceConfig;
 import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
 import org.smooks.assertion.AssertArgument;
+import org.smooks.cartridges.camel.metrics.RouteMetrics;
+import org.smooks.cartridges.camel.metrics.SmooksMetrics;
+import org.smooks.cartridges.camel.processor.SmooksProcessor;
+import org.smooks.cartridges.camel.processor.SmooksStartup;
 import org.smooks.cartridges.javabean.BeanMapExpressionEvaluator;
 import org.smooks.engine.resource.config.DefaultResourceConfig;
 import org.smooks.support.FreeMarkerTemplate;
-import org.smooks.support.FreeMarkerUtils;
 import org.w3c.dom.Element;
 
 import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Camel bean routing visitor.
+ * <p/>
+ * Beans are sent synchronously by default. In asynchronous mode, filtering carries on while beans are
+ * delivered, with at most <code>maxInFlight</code> undelivered beans per execution. Asynchronous delivery
+ * does not preserve the order of the beans. Delivery failures are reported on the Camel exchange being
+ * filtered once the execution has finished.
+ * <p/>
+ * With an <code>executorServiceRef</code>, beans are routed asynchronously on the referenced executor service so that
+ * the downstream route processing of a single input runs in parallel. <code>preserveOrder</code> delivers the beans of
+ * the same correlationId one after the other, in the order in which they were routed.
+ * <p/>
+ * With a <code>batchSize</code>, beans are collected and routed together as a <code>List</code> once
+ * <code>batchSize</code> beans have been collected, once <code>batchTimeout</code> milliseconds have passed
+ * since the first bean of the batch was collected and, for the remaining beans, at the end of the execution.
+ * A timed out batch is routed on a separate thread while filtering carries on, so that a slow endpoint does not hold up
+ * the timeouts of the other executions. The headers and correlationId of a
+ * batch are those of the execution context when its first bean was collected.
+ * <p/>
+ * <code>headers</code> selects the beans of the {@link org.smooks.api.bean.context.BeanContext} copied as
+ * headers of the routed exchange: <code>all</code>, <code>none</code> or a comma-separated list of beanIds.
+ * Defaults to <code>all</code>, or to <code>none</code> when a <code>correlationIdPattern</code> is configured.
+ *
+ * <p/>
+ * Beans are sent through the {@link EndpointProducerPool} shared by all the routers of the {@link CamelContext}.
  *
  * @author <a href="mailto:tom.fennelly@gmail.com">tom.fennelly@gmail.com</a>
  * @author <a href="mailto:daniel.bevenius@gmail.com">daniel.bevenius@gmail.com</a>
  */
 public class BeanRouter implements AfterVisitor, Consumer, PreExecutionLifecycle, PostExecutionLifecycle {
 
+    public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+    public static final String HEADERS_ALL = "all";
+    public static final String HEADERS_NONE = "none";
+
     @Inject
     private String beanId;
 
@@ -90,15 +135,49 @@ public class BeanRouter implements AfterVisitor, Consumer, PreExecutionLifecycle
     @Inject
     private Optional<FreeMarkerTemplate> correlationIdPattern;
 
+    @Inject
+    private Optional<Boolean> async;
+
+    @Inject
+    private Optional<Integer> maxInFlight;
+
+    @Inject
+    private Optional<Integer> batchSize;
+
+    @Inject
+    private Optional<Long> batchTimeout;
+
+    @Inject
+    private Optional<String> headers;
+
+    @Inject
+    private Optional<String> conditionLanguage;
+
+    @Inject
+    private Optional<String> executorServiceRef;
+
+    @Inject
+    private Optional<Boolean> preserveOrder;
+
     @Inject
     private ApplicationContext applicationContext;
 
     @Inject
     ResourceConfig resourceConfig;
 
+    private EndpointProducerPool endpointProducerPool;
     private ProducerTemplate producerTemplate;
     private BeanRouterObserver camelRouterObserable;
     private CamelContext camelContext;
+    private List<String> headerBeanIds;
+    private CorrelationIdPattern compiledCorrelationIdPattern;
+    private ExecutorService executorService;
+    private boolean shutdownExecutorService;
+    private RouteMetrics routeMetrics;
+    private ScheduledExecutorService batchTimeoutExecutorService;
+    private ExecutorService batchRoutingExecutorService;
+    private final TypedKey<InFlightExchanges> inFlightExchangesTypedKey = TypedKey.of();
+    private final TypedKey<BeanBatches> beanBatchesTypedKey = TypedKey.of();
 
     public BeanRouter() {
     }
@@ -113,11 +192,17 @@ public class BeanRouter implements AfterVisitor, Consumer, PreExecutionLifecycle
             resourceConfig = new DefaultResourceConfig();
         }
 
-        producerTemplate = getCamelContext().createProducerTemplate();
+        endpointProducerPool = EndpointProducerPool.get(getCamelContext());
+        producerTemplate = endpointProducerPool.getProducerTemplate();
         if (isBeanRoutingConfigured()) {
             camelRouterObserable = new BeanRouterObserver(this, beanId);
-            if (condition != null && condition.isPresent()) {
-                camelRouterObserable.setConditionEvaluator(new BeanMapExpressionEvaluator(condition.get()));
+            // <camel:to endpoint="..."/> maps an empty condition
+            if (condition != null && condition.isPresent() && !condition.get().isBlank()) {
+                if (conditionLanguage != null && conditionLanguage.isPresent()) {
+                    camelRouterObserable.setConditionEvaluator(new CamelPredicateEvaluator(getCamelContext(), conditionLanguage.get(), beanId, condition.get()));
+                } else {
+                    camelRouterObserable.setConditionEvaluator(new BeanMapExpressionEvaluator(condition.get()));
+                }
             }
         }
 
@@ -127,6 +212,47 @@ public class BeanRouter implements AfterVisitor, Consumer, PreExecutionLifecycle
         if ((correlationIdName == null || !correlationIdName.isPresent()) && (correlationIdPattern != null && correlationIdPattern.isPresent())) {
             throw new SmooksConfigException("Camel router component configured with a 'correlationIdPattern', but 'correlationIdName' is not configured.");
         }
+        if (correlationIdPattern != null && correlationIdPattern.isPresent()) {
+            compiledCorrelationIdPattern = new CorrelationIdPattern(correlationIdPattern.get());
+        }
+        final String headerSelection;
+        if (headers != null && headers.isPresent() && !headers.get().isBlank()) {
+            headerSelection = headers.get().trim();
+        } else {
+            headerSelection = correlationIdPattern != null && correlationIdPattern.isPresent() ? HEADERS_NONE : HEADERS_ALL;
+        }
+        if (headerSelection.equals(HEADERS_ALL)) {
+            headerBeanIds = null;
+        } else if (headerSelection.equals(HEADERS_NONE)) {
+            headerBeanIds = Collections.emptyList();
+        } else {
+            headerBeanIds = Arrays.stream(headerSelection.split(",")).map(String::trim).filter(headerBeanId -> !headerBeanId.isEmpty()).collect(Collectors.toList());
+        }
+
+        if (getMaxInFlight() < 1) {
+            throw new SmooksConfigException("Camel router component configured with a 'maxInFlight' of " + getMaxInFlight() + ". 'maxInFlight' must be greater than 0.");
+        }
+        if (isBatching() && batchSize.get() < 1) {
+            throw new SmooksConfigException("Camel router component configured with a 'batchSize' of " + batchSize.get() + ". 'batchSize' must be greater than 0.");
+        }
+        if (batchTimeout != null && batchTimeout.isPresent() && !isBatching()) {
+            throw new SmooksConfigException("Camel router component configured with a 'batchTimeout', but 'batchSize' is not configured.");
+        }
+        if (isPreserveOrder() && (executorServiceRef == null || !executorServiceRef.isPresent())) {
+            throw new SmooksConfigException("Camel router component configured with 'preserveOrder', but 'executorServiceRef' is not configured.");
+        }
+        if (isPreserveOrder() && compiledCorrelationIdPattern == null) {
+            throw new SmooksConfigException("Camel router component configured with 'preserveOrder', but 'correlationIdPattern' is not configured.");
+        }
+        if (executorServiceRef != null && executorServiceRef.isPresent()) {
+            executorService = lookupExecutorService(executorServiceRef.get());
+        }
+        if (getBatchTimeout() > 0) {
+            batchTimeoutExecutorService = getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, "BeanRouter[" + beanId + "] batch timeout");
+            batchRoutingExecutorService = getCamelContext().getExecutorServiceManager().newCachedThreadPool(this, "BeanRouter[" + beanId + "] batch routing");
+        }
+        final boolean hasCondition = camelRouterObserable != null && condition != null && condition.isPresent() && !condition.get().isBlank();
+        routeMetrics = SmooksMetrics.get(getCamelContext()).forRoute(beanId, toEndpoint, hasCondition ? camelRouterObserable.getConditionStatistics() : null);
     }
 
     /**
@@ -173,6 +299,112 @@ public class BeanRouter implements AfterVisitor, Consumer, PreExecutionLifecycle
         return this;
     }
 
+    /**
+     * Set whether beans are sent asynchronously.
+     *
+     * @param async <code>true</code> to keep filtering while beans are delivered.
+     * @return This router instance.
+     */
+    public BeanRouter setAsync(final boolean async) {
+        this.async = Optional.of(async);
+        return this;
+    }
+
+    /**
+     * Set the maximum number of beans sent asynchronously but not yet delivered, per execution. Filtering
+     * blocks once this number is reached. Only applies to asynchronous routing.
+     *
+     * @param maxInFlight The maximum number of undelivered beans. Defaults to {@link #DEFAULT_MAX_IN_FLIGHT}.
+     * @return This router instance.
+     */
+    public BeanRouter setMaxInFlight(final int maxInFlight) {
+        this.maxInFlight = Optional.of(maxInFlight);
+        return this;
+    }
+
+    /**
+     * Set the number of beans to collect and route together as a <code>List</code>.
+     *
+     * @param batchSize The number of beans per batch.
+     * @return This router instance.
+     */
+    public BeanRouter setBatchSize(final int batchSize) {
+        this.batchSize = Optional.of(batchSize);
+        return this;
+    }
+
+    /**
+     * Set the time after which an incomplete batch is routed, counted from the collection of its first bean. The
+     * batch is routed from a scheduler thread without waiting for the next bean. Only applies when a batch size is set.
+     *
+     * @param batchTimeout The batch timeout in milliseconds.
+     * @return This router instance.
+     */
+    public BeanRouter setBatchTimeout(final long batchTimeout) {
+        this.batchTimeout = Optional.of(batchTimeout);
+        return this;
+    }
+
+    /**
+     * Set the beans copied as headers of the routed exchange.
+     *
+     * @param headers {@link #HEADERS_ALL}, {@link #HEADERS_NONE} or a comma-separated list of beanIds.
+     * @return This router instance.
+     */
+    public BeanRouter setHeaders(final String headers) {
+        AssertArgument.isNotNullAndNotEmpty(headers, "headers");
+        this.headers = Optional.of(headers);
+        return this;
+    }
+
+    /**
+     * Set the Camel language of the routing condition (e.g., <code>simple</code>). The condition is evaluated against
+     * an exchange whose body is the bean to be routed. Defaults to an MVEL condition evaluated against the bean context.
+     *
+     * @param conditionLanguage The Camel language name.
+     * @return This router instance.
+     */
+    public BeanRouter setConditionLanguage(final String conditionLanguage) {
+        AssertArgument.isNotNullAndNotEmpty(conditionLanguage, "conditionLanguage");
+        this.conditionLanguage = Optional.of(conditionLanguage);
+        return this;
+    }
+
+    /**
+     * Set the executor service on which beans are routed, in parallel, while filtering continues. The reference is
+     * looked up in the Camel registry as an {@link ExecutorService} and, failing that, as a thread pool profile of the
+     * Camel {@link org.apache.camel.spi.ExecutorServiceManager}.
+     *
+     * @param executorServiceRef The executor service reference.
+     * @return This router instance.
+     */
+    public BeanRouter setExecutorServiceRef(final String executorServiceRef) {
+        AssertArgument.isNotNullAndNotEmpty(executorServiceRef, "executorServiceRef");
+        this.executorServiceRef = Optional.of(executorServiceRef);
+        return this;
+    }
+
+    /**
+     * Set whether beans with the same correlationId are delivered in the order in which they were routed. Only
+     * applies when routing on an executor service.
+     *
+     * @param preserveOrder <code>true</code> to deliver beans of the same correlationId one after the other.
+     * @return This router instance.
+     */
+    public BeanRouter setPreserveOrder(final boolean preserveOrder) {
+        this.preserveOrder = Optional.of(preserveOrder);
+        return this;
+    }
+
+    /**
+     * Get the evaluation statistics of the routing condition.
+     *
+     * @return The condition statistics, or <code>null</code> if the router is not routing on bean lifecycle events.
+     */
+    public ConditionStatistics getConditionStatistics() {
+        return camelRouterObserable != null ? camelRouterObserable.getConditionStatistics() : null;
+    }
+
     @Override
     public void visitAfter(final Element element, final ExecutionContext executionContext) throws SmooksException {
         final Object bean = getBeanFromExecutionContext(executionContext, beanId);
@@ -180,26 +412,248 @@ public class BeanRouter implements AfterVisitor, Consumer, PreExecutionLifecycle
     }
 
     /**
-     * Send the bean to the target endpoint.
+     * Send the bean to the target endpoint, or add it to the current batch when batching. The beans of a warm-up
+     * sample (see {@link SmooksStartup#WARM_UP_TYPED_KEY}) are not sent.
      *
      * @param bean        The bean to be sent.
      * @param execContext The execution context.
      */
     protected void sendBean(final Object bean, final ExecutionContext execContext) {
+        if (Boolean.TRUE.equals(execContext.get(SmooksStartup.WARM_UP_TYPED_KEY))) {
+            return;
+        }
+        if (isBatching()) {
+            addToBatch(bean, execContext);
+        } else {
+            route(bean, selectHeaders(execContext), getCorrelationId(execContext), isAsync() ? getInFlightExchanges(execContext) : null);
+        }
+    }
+
+    private void addToBatch(final Object bean, final ExecutionContext execContext) {
+        BeanBatches beanBatches = execContext.get(beanBatchesTypedKey);
+        if (beanBatches == null) {
+            beanBatches = new BeanBatches();
+            execContext.put(beanBatchesTypedKey, beanBatches);
+        }
+        if (beanBatches.getTimedOutBatchFailure() != null) {
+            throw beanBatches.getTimedOutBatchFailure();
+        }
+
+        BeanBatch beanBatch = beanBatches.getOpenBatch();
+        while (beanBatch == null || !beanBatch.add(bean)) {
+            beanBatch = openBatch(beanBatches, execContext);
+        }
+        if (beanBatch.size() >= batchSize.get() && beanBatches.take(beanBatch)) {
+            // keep batches in order behind a timed out batch still being routed
+            awaitTimedOutBatches(beanBatches);
+            route(beanBatch);
+        }
+    }
+
+    private BeanBatch openBatch(final BeanBatches beanBatches, final ExecutionContext execContext) {
+        // the bean context keeps changing so the batch takes its own copy of the headers
+        final BeanBatch beanBatch = new BeanBatch(batchSize.get(), new HashMap<>(selectHeaders(execContext)), getCorrelationId(execContext), isAsync() ? getInFlightExchanges(execContext) : null);
+        beanBatches.open(beanBatch);
+        if (batchTimeoutExecutorService != null) {
+            beanBatch.setTimeout(batchTimeoutExecutorService.schedule(() -> batchTimedOut(beanBatches, beanBatch), getBatchTimeout(), TimeUnit.MILLISECONDS));
+        }
+        return beanBatch;
+    }
+
+    private void batchTimedOut(final BeanBatches beanBatches, final BeanBatch beanBatch) {
+        // the timeout thread is shared by all the executions so it only hands over the batch
+        if (beanBatches.takeTimedOut(beanBatch)) {
+            try {
+                batchRoutingExecutorService.execute(() -> routeTimedOutBatch(beanBatches, beanBatch));
+            } catch (RejectedExecutionException e) {
+                beanBatches.timedOutBatchRouted(new SmooksException("Timed out batch of beanId '" + beanId + "' rejected for routing to endpoint '" + toEndpoint + "'.", e));
+            }
+        }
+    }
+
+    private void routeTimedOutBatch(final BeanBatches beanBatches, final BeanBatch beanBatch) {
+        SmooksException failure = null;
+        try {
+            route(beanBatch);
+        } catch (SmooksException e) {
+            failure = e;
+        } finally {
+            beanBatches.timedOutBatchRouted(failure);
+        }
+    }
+
+    private void route(final BeanBatch beanBatch) {
+        route(beanBatch.getBeans(), beanBatch.getHeaders(), beanBatch.getCorrelationId(), beanBatch.getInFlightExchanges());
+    }
+
+    private void route(final Object bean, final Map<String, Object> headers, final String correlationId, final InFlightExchanges inFlightExchanges) {
+        final long routeStart = routeMetrics.isEnabled() ? System.nanoTime() : 0;
         try {
-            if (correlationIdPattern != null && correlationIdPattern.isPresent()) {
+            if (inFlightExchanges != null) {
+                // recorded by InFlightExchanges once delivered
+                sendBeanAsync(bean, headers, correlationId, inFlightExchanges);
+                return;
+            }
+            if (compiledCorrelationIdPattern != null) {
                 Processor processor = exchange -> {
                     Message in = exchange.getIn();
                     in.setBody(bean);
-                    in.setHeader(correlationIdName.orElse(null), correlationIdPattern.get().apply(FreeMarkerUtils.getMergedModel(execContext)));
+                    in.getHeaders().putAll(headers);
+                    in.setHeader(correlationIdName.orElse(null), correlationId);
                 };
-                producerTemplate.send(toEndpoint, processor);
+                final Exchange routedExchange = producerTemplate.send(getEndpoint(), processor);
+                if (routedExchange.getException() != null) {
+                    throw routedExchange.getException();
+                }
             } else {
-                producerTemplate.sendBodyAndHeaders(toEndpoint, bean, execContext.getBeanContext().getBeanMap());
+                producerTemplate.sendBodyAndHeaders(getEndpoint(), bean, headers);
             }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while routing beanId '" + beanId + "' to endpoint '" + toEndpoint + "'.", e);
         } catch (final Exception e) {
+            routeMetrics.recordFailure();
             throw new SmooksException("Exception routing beanId '" + beanId + "' to endpoint '" + toEndpoint + "'.", e);
         }
+        if (routeMetrics.isEnabled()) {
+            routeMetrics.recordRouted(System.nanoTime() - routeStart);
+        }
+    }
+
+    private void sendBeanAsync(final Object bean, final Map<String, Object> headers, final String correlationId, final InFlightExchanges inFlightExchanges) throws InterruptedException {
+        if (inFlightExchanges.getFailure() != null) {
+            throw new SmooksException("A bean previously routed asynchronously could not be delivered.", inFlightExchanges.getFailure());
+        }
+
+        // the exchange is populated on the calling thread because the bean context keeps changing
+        final Exchange exchange = new DefaultExchange(producerTemplate.getCamelContext());
+        final Message in = exchange.getIn();
+        in.setBody(bean);
+        in.getHeaders().putAll(headers);
+        if (compiledCorrelationIdPattern != null) {
+            in.setHeader(correlationIdName.orElse(null), correlationId);
+        }
+
+        inFlightExchanges.send(producerTemplate, getEndpoint(), exchange, executorService, isPreserveOrder() ? correlationId : null);
+    }
+
+    private InFlightExchanges getInFlightExchanges(final ExecutionContext execContext) {
+        InFlightExchanges inFlightExchanges = execContext.get(inFlightExchangesTypedKey);
+        if (inFlightExchanges == null) {
+            inFlightExchanges = new InFlightExchanges(getMaxInFlight(), routeMetrics);
+            execContext.put(inFlightExchangesTypedKey, inFlightExchanges);
+        }
+        return inFlightExchanges;
+    }
+
+    private String getCorrelationId(final ExecutionContext execContext) {
+        return compiledCorrelationIdPattern != null ? compiledCorrelationIdPattern.apply(execContext) : null;
+    }
+
+    private Map<String, Object> selectHeaders(final ExecutionContext execContext) {
+        if (headerBeanIds == null) {
+            return execContext.getBeanContext().getBeanMap();
+        }
+        if (headerBeanIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, Object> selectedHeaders = new HashMap<>();
+        for (String headerBeanId : headerBeanIds) {
+            final Object headerBean = execContext.getBeanContext().getBean(headerBeanId);
+            if (headerBean != null) {
+                selectedHeaders.put(headerBeanId, headerBean);
+            }
+        }
+        return selectedHeaders;
+    }
+
+    private void flushBeanBatch(final ExecutionContext executionContext) {
+        final BeanBatches beanBatches = executionContext.get(beanBatchesTypedKey);
+        if (beanBatches == null) {
+            return;
+        }
+        executionContext.remove(beanBatchesTypedKey);
+
+        final BeanBatch beanBatch = beanBatches.getOpenBatch();
+        final boolean flush = beanBatch != null && beanBatches.take(beanBatch);
+        awaitTimedOutBatches(beanBatches);
+        if (flush) {
+            route(beanBatch);
+        }
+    }
+
+    private void awaitTimedOutBatches(final BeanBatches beanBatches) {
+        try {
+            beanBatches.awaitTimedOutBatches();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while waiting for beanId '" + beanId + "' to be routed to endpoint '" + toEndpoint + "'.", e);
+        }
+        if (beanBatches.getTimedOutBatchFailure() != null) {
+            throw beanBatches.getTimedOutBatchFailure();
+        }
+    }
+
+    private void awaitInFlightExchanges(final ExecutionContext executionContext) {
+        final InFlightExchanges inFlightExchanges = executionContext.get(inFlightExchangesTypedKey);
+        if (inFlightExchanges == null) {
+            return;
+        }
+        executionContext.remove(inFlightExchangesTypedKey);
+
+        try {
+            inFlightExchanges.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while waiting for beanId '" + beanId + "' to be routed to endpoint '" + toEndpoint + "'.", e);
+        }
+        if (inFlightExchanges.getFailure() != null) {
+            throw new SmooksException("Exception routing beanId '" + beanId + "' to endpoint '" + toEndpoint + "'.", inFlightExchanges.getFailure());
+        }
+    }
+
+    private void failExchange(final ExecutionContext executionContext, final SmooksException smooksException) {
+        // Smooks only logs exceptions thrown from post-execution handlers so hand over the failure to Camel
+        final Exchange exchange = executionContext.get(SmooksProcessor.EXCHANGE_TYPED_KEY);
+        if (exchange != null && exchange.getException() == null) {
+            exchange.setException(smooksException);
+        } else {
+            throw smooksException;
+        }
+    }
+
+    private boolean isAsync() {
+        return (async != null && async.orElse(false)) || executorService != null;
+    }
+
+    private boolean isPreserveOrder() {
+        return preserveOrder != null && preserveOrder.orElse(false);
+    }
+
+    private ExecutorService lookupExecutorService(final String executorServiceRef) {
+        final ExecutorService registeredExecutorService = CamelContextHelper.lookup(getCamelContext(), executorServiceRef, ExecutorService.class);
+        if (registeredExecutorService != null) {
+            return registeredExecutorService;
+        }
+        if (getCamelContext().getExecutorServiceManager().getThreadPoolProfile(executorServiceRef) != null) {
+            shutdownExecutorService = true;
+            return getCamelContext().getExecutorServiceManager().newThreadPool(this, "BeanRouter[" + beanId + "]", executorServiceRef);
+        }
+
+        throw new SmooksConfigException("Camel router component configured with an 'executorServiceRef' of '" + executorServiceRef + "', but no ExecutorService or thread pool profile is registered under that name.");
+    }
+
+    private boolean isBatching() {
+        return batchSize != null && batchSize.isPresent();
+    }
+
+    private long getBatchTimeout() {
+        return batchTimeout != null ? batchTimeout.orElse(0L) : 0L;
+    }
+
+    private int getMaxInFlight() {
+        return maxInFlight != null ? maxInFlight.orElse(DEFAULT_MAX_IN_FLIGHT) : DEFAULT_MAX_IN_FLIGHT;
     }
 
     private Object getBeanFromExecutionContext(final ExecutionContext execContext, final String beanId) {
@@ -223,12 +677,26 @@ public class BeanRouter implements AfterVisitor, Consumer, PreExecutionLifecycle
         return "none".equals(resourceConfig.getSelectorPath().getSelector());
     }
 
+    private Endpoint getEndpoint() {
+        // not cached here: the pool drops its endpoints when it stops
+        return endpointProducerPool.getEndpoint(toEndpoint);
+    }
+
+    /**
+     * Release the executor services and metrics of this router. The shared producer template is left to the
+     * {@link EndpointProducerPool}, which is stopped together with the {@link CamelContext}.
+     */
     @PreDestroy
     public void preDestroy() {
-        try {
-            producerTemplate.stop();
-        } catch (final Exception e) {
-            throw new SmooksException(e.getMessage(), e);
+        if (shutdownExecutorService) {
+            getCamelContext().getExecutorServiceManager().shutdown(executorService);
+        }
+        if (batchTimeoutExecutorService != null) {
+            getCamelContext().getExecutorServiceManager().shutdownNow(batchTimeoutExecutorService);
+            getCamelContext().getExecutorServiceManager().shutdown(batchRoutingExecutorService);
+        }
+        if (routeMetrics != null) {
+            routeMetrics.close();
         }
     }
 
@@ -240,14 +708,34 @@ public class BeanRouter implements AfterVisitor, Consumer, PreExecutionLifecycle
     @Override
     public void onPostExecution(ExecutionContext executionContext) {
         if (isBeanRoutingConfigured()) {
-            executionContext.getBeanContext().removeObserver(camelRouterObserable);
+            DispatchingBeanRouterObserver.unregister(executionContext, beanId, camelRouterObserable);
+        }
+        SmooksException smooksException = null;
+        if (isBatching()) {
+            try {
+                flushBeanBatch(executionContext);
+            } catch (SmooksException e) {
+                smooksException = e;
+            }
+        }
+        if (isAsync()) {
+            try {
+                awaitInFlightExchanges(executionContext);
+            } catch (SmooksException e) {
+                if (smooksException == null) {
+                    smooksException = e;
+                }
+            }
+        }
+        if (smooksException != null) {
+            failExchange(executionContext, smooksException);
         }
     }
 
     @Override
     public void onPreExecution(ExecutionContext executionContext) {
         if (isBeanRoutingConfigured()) {
-            executionContext.getBeanContext().addObserver(camelRouterObserable);
+            DispatchingBeanRouterObserver.register(executionContext, beanId, camelRouterObserable);
         }
     }
 }
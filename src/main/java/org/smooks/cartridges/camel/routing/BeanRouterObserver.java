@@ -42,6 +42,8 @@
  */
 package org.smooks.cartridges.camel.routing;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.smooks.api.bean.context.BeanContext;
 import org.smooks.api.bean.lifecycle.BeanContextLifecycleEvent;
 import org.smooks.api.bean.lifecycle.BeanContextLifecycleObserver;
@@ -57,8 +59,11 @@ import org.smooks.assertion.AssertArgument;
  * @author Daniel Bevenius
  */
 public class BeanRouterObserver implements BeanContextLifecycleObserver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BeanRouterObserver.class);
+
     private final BeanRouter beanRouter;
     private final String beanId;
+    private final ConditionStatistics conditionStatistics = new ConditionStatistics();
     private ExecutionContextExpressionEvaluator conditionEvaluator;
 
     /**
@@ -87,6 +92,15 @@ public class BeanRouterObserver implements BeanContextLifecycleObserver {
         this.conditionEvaluator = conditionEvaluator;
     }
 
+    /**
+     * Get the evaluation statistics of the routing condition.
+     *
+     * @return The condition statistics.
+     */
+    public ConditionStatistics getConditionStatistics() {
+        return conditionStatistics;
+    }
+
     /**
      * Will route to the endpoint if the BeanLifecycle is of type BeanLifecycle.REMOVE and
      * the beanId is equals to the beanId that was configured for this instance.
@@ -107,8 +121,15 @@ public class BeanRouterObserver implements BeanContextLifecycleObserver {
         }
 
         try {
-            return conditionEvaluator.eval(event.getExecutionContext());
+            final boolean match = conditionEvaluator.eval(event.getExecutionContext());
+            conditionStatistics.evaluated(match);
+            return match;
         } catch (Exception e) {
+            if (conditionStatistics.failed()) {
+                LOGGER.warn("Failed to evaluate routing condition '{}' of beanId '{}'. The bean is not routed when its condition fails. Further failures are logged at debug level.", conditionEvaluator.getExpression(), beanId, e);
+            } else {
+                LOGGER.debug("Failed to evaluate routing condition '{}' of beanId '{}'", conditionEvaluator.getExpression(), beanId, e);
+            }
             return false;
         }
     }
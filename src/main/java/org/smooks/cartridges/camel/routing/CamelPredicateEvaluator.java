@@ -0,0 +1,117 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Predicate;
+import org.apache.camel.support.DefaultExchange;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
+import org.smooks.api.expression.ExecutionContextExpressionEvaluator;
+import org.smooks.api.expression.ExpressionEvaluationException;
+import org.smooks.api.expression.ExpressionEvaluator;
+
+/**
+ * {@link ExecutionContextExpressionEvaluator} for routing conditions written in a Camel language (e.g., <code>simple</code>).
+ * <p/>
+ * The condition is compiled once into a Camel {@link Predicate} and matched against an exchange whose body is the
+ * bean to be routed.
+ */
+class CamelPredicateEvaluator implements ExecutionContextExpressionEvaluator {
+    private final CamelContext camelContext;
+    private final String language;
+    private final String beanId;
+    private String expression;
+    private Predicate predicate;
+
+    CamelPredicateEvaluator(final CamelContext camelContext, final String language, final String beanId, final String expression) {
+        this.camelContext = camelContext;
+        this.language = language;
+        this.beanId = beanId;
+        setExpression(expression);
+    }
+
+    @Override
+    public ExpressionEvaluator setExpression(final String expression) throws SmooksConfigException {
+        try {
+            predicate = camelContext.resolveLanguage(language).createPredicate(expression);
+            predicate.init(camelContext);
+        } catch (RuntimeException e) {
+            throw new SmooksConfigException("Failed to compile " + language + " condition '" + expression + "'.", e);
+        }
+        this.expression = expression;
+        return this;
+    }
+
+    @Override
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public boolean eval(final ExecutionContext executionContext) throws ExpressionEvaluationException {
+        return eval(executionContext.getBeanContext().getBean(beanId));
+    }
+
+    @Override
+    public Object getValue(final ExecutionContext executionContext) throws ExpressionEvaluationException {
+        return eval(executionContext);
+    }
+
+    @Override
+    public boolean eval(final Object bean) throws ExpressionEvaluationException {
+        final Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setBody(bean);
+        try {
+            return predicate.matches(exchange);
+        } catch (RuntimeException e) {
+            throw new ExpressionEvaluationException("Error evaluating " + language + " condition '" + expression + "'.", e);
+        }
+    }
+
+    @Override
+    public Object getValue(final Object bean) throws ExpressionEvaluationException {
+        return eval(bean);
+    }
+}
@@ -0,0 +1,100 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluation statistics of a {@link BeanRouter} routing condition.
+ * <p/>
+ * A condition that fails to evaluate is treated as not matching, so a growing {@link #getErrorCount() error count}
+ * is the sign of a condition that is silently failing.
+ */
+public class ConditionStatistics {
+    private final LongAdder evaluationCount = new LongAdder();
+    private final LongAdder falseCount = new LongAdder();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    void evaluated(final boolean result) {
+        evaluationCount.increment();
+        if (!result) {
+            falseCount.increment();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if this is the first error.
+     */
+    boolean failed() {
+        evaluationCount.increment();
+        falseCount.increment();
+        return errorCount.incrementAndGet() == 1;
+    }
+
+    /**
+     * @return The number of times the condition was evaluated.
+     */
+    public long getEvaluationCount() {
+        return evaluationCount.sum();
+    }
+
+    /**
+     * @return The number of times the condition did not match, including the evaluations that failed.
+     */
+    public long getFalseCount() {
+        return falseCount.sum();
+    }
+
+    /**
+     * @return The number of times the condition failed to evaluate.
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ConditionStatistics[evaluationCount=" + getEvaluationCount() + ", falseCount=" + getFalseCount() + ", errorCount=" + getErrorCount() + "]";
+    }
+}
@@ -0,0 +1,221 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.smooks.api.ExecutionContext;
+import org.smooks.engine.resource.visitor.dom.DOMModel;
+import org.smooks.support.FreeMarkerTemplate;
+import org.smooks.support.FreeMarkerUtils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates correlationIds from a {@link BeanRouter} <code>correlationIdPattern</code>.
+ * <p/>
+ * Patterns made up of literal text and <code>${beanId.property.property}</code> references are compiled into accessor
+ * chains that are evaluated directly against the {@link org.smooks.api.bean.context.BeanContext}, sparing the merged
+ * FreeMarker model and the template processing of each routed bean. Any other pattern, and any value that the compiled
+ * chain cannot render exactly as FreeMarker would (e.g., <code>null</code>s, decimals, dates), is delegated to the
+ * FreeMarker template.
+ */
+class CorrelationIdPattern {
+
+    private static final Pattern REFERENCE = Pattern.compile("\\$\\{\\s*([A-Za-z_][A-Za-z0-9_]*(?:\\.[A-Za-z_][A-Za-z0-9_]*)*)\\s*}");
+    private static final List<String> DIRECTIVES = Arrays.asList("${", "#{", "<#", "</#", "<@", "</@", "[#", "[/#", "[@", "[/@", "[=");
+    private static final Set<String> RESERVED_NAMES = Set.of("true", "false", "gt", "gte", "lt", "lte", "as", "in", "using");
+    private static final Object UNRESOLVED = new Object();
+    private static final ClassValue<Map<String, Method>> READ_METHODS = new ClassValue<>() {
+        @Override
+        protected Map<String, Method> computeValue(final Class<?> type) {
+            final Map<String, Method> readMethods = new HashMap<>();
+            try {
+                for (PropertyDescriptor propertyDescriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                    if (propertyDescriptor.getReadMethod() != null) {
+                        readMethods.put(propertyDescriptor.getName(), propertyDescriptor.getReadMethod());
+                    }
+                }
+            } catch (IntrospectionException e) {
+                return Map.of();
+            }
+            return readMethods;
+        }
+    };
+
+    private final FreeMarkerTemplate template;
+    private final List<Object> segments;
+
+    CorrelationIdPattern(final FreeMarkerTemplate template) {
+        this.template = template;
+        this.segments = compile(template.getTemplateText());
+    }
+
+    /**
+     * @return <code>true</code> if the pattern was compiled into accessor chains, otherwise <code>false</code> when
+     * every correlationId is generated by FreeMarker.
+     */
+    boolean isCompiled() {
+        return segments != null;
+    }
+
+    /**
+     * Generate the correlationId of the current state of the execution.
+     *
+     * @param executionContext The execution context.
+     * @return The correlationId.
+     */
+    String apply(final ExecutionContext executionContext) {
+        if (segments != null) {
+            final StringBuilder correlationId = new StringBuilder();
+            for (Object segment : segments) {
+                if (segment instanceof String) {
+                    correlationId.append((String) segment);
+                } else {
+                    final String value = resolve((String[]) segment, executionContext);
+                    if (value == null) {
+                        return template.apply(FreeMarkerUtils.getMergedModel(executionContext));
+                    }
+                    correlationId.append(value);
+                }
+            }
+            return correlationId.toString();
+        }
+
+        return template.apply(FreeMarkerUtils.getMergedModel(executionContext));
+    }
+
+    private static List<Object> compile(final String templateText) {
+        final List<Object> segments = new ArrayList<>();
+        final Matcher matcher = REFERENCE.matcher(templateText);
+        int literalStart = 0;
+        while (matcher.find()) {
+            final String[] path = matcher.group(1).split("\\.");
+            if (!addLiteral(segments, templateText.substring(literalStart, matcher.start())) || RESERVED_NAMES.contains(path[0])) {
+                return null;
+            }
+            segments.add(path);
+            literalStart = matcher.end();
+        }
+        if (!addLiteral(segments, templateText.substring(literalStart))) {
+            return null;
+        }
+
+        return segments;
+    }
+
+    private static boolean addLiteral(final List<Object> segments, final String literal) {
+        for (String directive : DIRECTIVES) {
+            if (literal.contains(directive)) {
+                return false;
+            }
+        }
+        if (!literal.isEmpty()) {
+            segments.add(literal);
+        }
+        return true;
+    }
+
+    private static String resolve(final String[] path, final ExecutionContext executionContext) {
+        Object value = executionContext.getBeanContext().getBean(path[0]);
+        if (value == null || DOMModel.getModel(executionContext).getModels().containsKey(path[0])) {
+            return null;
+        }
+        for (int i = 1; i < path.length; i++) {
+            value = getProperty(value, path[i]);
+            if (value == null || value == UNRESOLVED) {
+                return null;
+            }
+        }
+
+        return format(value);
+    }
+
+    private static Object getProperty(final Object bean, final String name) {
+        if (bean instanceof Map) {
+            return ((Map<?, ?>) bean).get(name);
+        }
+        if (bean instanceof String || bean instanceof Number || bean instanceof Boolean || bean instanceof Iterable || bean.getClass().isArray()) {
+            return UNRESOLVED;
+        }
+
+        final Method readMethod = READ_METHODS.get(bean.getClass()).get(name);
+        if (readMethod == null) {
+            return UNRESOLVED;
+        }
+        try {
+            return readMethod.invoke(bean);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return UNRESOLVED;
+        }
+    }
+
+    private static String format(final Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            // negative numbers are left to FreeMarker: the minus sign is locale dependent
+            return ((Number) value).longValue() >= 0 ? value.toString() : null;
+        }
+        if (value instanceof BigInteger) {
+            return ((BigInteger) value).signum() >= 0 ? value.toString() : null;
+        }
+        if (value instanceof Enum) {
+            return value.toString();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.TypedKey;
+import org.smooks.api.bean.lifecycle.BeanContextLifecycleEvent;
+import org.smooks.api.bean.lifecycle.BeanContextLifecycleObserver;
+import org.smooks.api.bean.lifecycle.BeanLifecycle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The single {@link BeanContextLifecycleObserver} through which the {@link BeanRouterObserver}s of an execution
+ * receive bean lifecycle events.
+ * <p/>
+ * The {@link BeanRouterObserver}s are indexed by beanId, so that an {@link BeanLifecycle#END_FRAGMENT} event is only
+ * dispatched to the observers routing that bean, and any other event is dropped straight away instead of fanning out
+ * to every observer.
+ */
+class DispatchingBeanRouterObserver implements BeanContextLifecycleObserver {
+    private static final TypedKey<DispatchingBeanRouterObserver> TYPED_KEY = TypedKey.of();
+
+    private final Map<String, List<BeanRouterObserver>> beanRouterObservers = new HashMap<>();
+    private int beanRouterObserverCount;
+
+    /**
+     * Register the {@link BeanRouterObserver} for the execution, adding the dispatching observer to the bean context
+     * on the first registration.
+     *
+     * @param executionContext   The execution context.
+     * @param beanId             The beanId routed by the observer.
+     * @param beanRouterObserver The observer.
+     */
+    static void register(final ExecutionContext executionContext, final String beanId, final BeanRouterObserver beanRouterObserver) {
+        DispatchingBeanRouterObserver dispatchingBeanRouterObserver = executionContext.get(TYPED_KEY);
+        if (dispatchingBeanRouterObserver == null) {
+            dispatchingBeanRouterObserver = new DispatchingBeanRouterObserver();
+            executionContext.put(TYPED_KEY, dispatchingBeanRouterObserver);
+            executionContext.getBeanContext().addObserver(dispatchingBeanRouterObserver);
+        }
+        dispatchingBeanRouterObserver.beanRouterObservers.computeIfAbsent(beanId, k -> new ArrayList<>(1)).add(beanRouterObserver);
+        dispatchingBeanRouterObserver.beanRouterObserverCount++;
+    }
+
+    /**
+     * Unregister the {@link BeanRouterObserver} from the execution, removing the dispatching observer from the bean
+     * context on the last unregistration.
+     *
+     * @param executionContext   The execution context.
+     * @param beanId             The beanId routed by the observer.
+     * @param beanRouterObserver The observer.
+     */
+    static void unregister(final ExecutionContext executionContext, final String beanId, final BeanRouterObserver beanRouterObserver) {
+        final DispatchingBeanRouterObserver dispatchingBeanRouterObserver = executionContext.get(TYPED_KEY);
+        if (dispatchingBeanRouterObserver == null) {
+            return;
+        }
+        final List<BeanRouterObserver> beanIdObservers = dispatchingBeanRouterObserver.beanRouterObservers.get(beanId);
+        if (beanIdObservers != null && beanIdObservers.remove(beanRouterObserver)) {
+            if (beanIdObservers.isEmpty()) {
+                dispatchingBeanRouterObserver.beanRouterObservers.remove(beanId);
+            }
+            if (--dispatchingBeanRouterObserver.beanRouterObserverCount == 0) {
+                executionContext.getBeanContext().removeObserver(dispatchingBeanRouterObserver);
+                executionContext.remove(TYPED_KEY);
+            }
+        }
+    }
+
+    @Override
+    public void onBeanLifecycleEvent(final BeanContextLifecycleEvent event) {
+        if (event.getLifecycle() != BeanLifecycle.END_FRAGMENT) {
+            return;
+        }
+        final List<BeanRouterObserver> beanIdObservers = beanRouterObservers.get(event.getBeanId().getName());
+        if (beanIdObservers != null) {
+            for (BeanRouterObserver beanRouterObserver : beanIdObservers) {
+                beanRouterObserver.onBeanLifecycleEvent(event);
+            }
+        }
+    }
+}
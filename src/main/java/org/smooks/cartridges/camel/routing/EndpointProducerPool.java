@@ -0,0 +1,131 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.support.CamelContextHelper;
+import org.apache.camel.support.service.ServiceSupport;
+import org.smooks.api.SmooksException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Producers shared by all the {@link BeanRouter}s of a {@link CamelContext}.
+ * <p/>
+ * A single {@link ProducerTemplate} is created per CamelContext so that its producer cache, keyed by endpoint, is shared
+ * instead of each router holding its own. Resolved {@link Endpoint}s are cached by URI. The pool is registered as a
+ * CamelContext service and is stopped together with the CamelContext.
+ * <p/>
+ * The size of the producer cache is read from the {@link #MAXIMUM_CACHE_SIZE} global option of the CamelContext,
+ * falling back to the Camel default.
+ */
+public final class EndpointProducerPool extends ServiceSupport {
+
+    public static final String MAXIMUM_CACHE_SIZE = "CamelSmooksMaximumCacheSize";
+
+    private static final Object LOCK = new Object();
+
+    private final CamelContext camelContext;
+    private final ProducerTemplate producerTemplate;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private EndpointProducerPool(final CamelContext camelContext, final int maximumCacheSize) {
+        this.camelContext = camelContext;
+        this.producerTemplate = camelContext.createProducerTemplate(maximumCacheSize);
+    }
+
+    /**
+     * Get the pool of the CamelContext, creating it on first use.
+     *
+     * @param camelContext The CamelContext.
+     * @return The CamelContext's pool.
+     */
+    public static EndpointProducerPool get(final CamelContext camelContext) {
+        synchronized (LOCK) {
+            EndpointProducerPool endpointProducerPool = camelContext.getCamelContextExtension().getContextPlugin(EndpointProducerPool.class);
+            if (endpointProducerPool == null) {
+                final String maximumCacheSize = camelContext.getGlobalOption(MAXIMUM_CACHE_SIZE);
+                endpointProducerPool = new EndpointProducerPool(camelContext, maximumCacheSize != null ? Integer.parseInt(maximumCacheSize) : 0);
+                try {
+                    camelContext.addService(endpointProducerPool, true, true);
+                } catch (Exception e) {
+                    throw new SmooksException("Failed to start the producer pool of CamelContext '" + camelContext.getName() + "'.", e);
+                }
+                camelContext.getCamelContextExtension().addContextPlugin(EndpointProducerPool.class, endpointProducerPool);
+            }
+
+            return endpointProducerPool;
+        }
+    }
+
+    /**
+     * @return The shared producer template.
+     */
+    public ProducerTemplate getProducerTemplate() {
+        return producerTemplate;
+    }
+
+    /**
+     * Resolve the endpoint, reusing the endpoint resolved previously for the same URI.
+     *
+     * @param endpointUri The endpoint URI.
+     * @return The endpoint.
+     */
+    public Endpoint getEndpoint(final String endpointUri) {
+        return endpoints.computeIfAbsent(endpointUri, uri -> CamelContextHelper.getMandatoryEndpoint(camelContext, uri));
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        producerTemplate.start();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        producerTemplate.stop();
+        endpoints.clear();
+    }
+}
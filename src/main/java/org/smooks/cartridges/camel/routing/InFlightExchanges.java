@@ -0,0 +1,142 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.smooks.cartridges.camel.metrics.RouteMetrics;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exchanges sent asynchronously by a {@link BeanRouter} during a single Smooks execution.
+ * <p/>
+ * At most <code>maxInFlight</code> exchanges are pending at any time: once the window is full,
+ * {@link #send(ProducerTemplate, Endpoint, Exchange, Executor, Object)} blocks the filtering thread until an exchange
+ * completes.
+ * <p/>
+ * Exchanges sent through an {@link Executor} with an order key are sent one after the other, in the order in which they
+ * were handed over, with respect to the other exchanges of the same order key.
+ */
+class InFlightExchanges {
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Map<Object, CompletableFuture<Exchange>> orderedExchanges = new ConcurrentHashMap<>();
+    private final RouteMetrics routeMetrics;
+
+    InFlightExchanges(final int maxInFlight, final RouteMetrics routeMetrics) {
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.routeMetrics = routeMetrics;
+    }
+
+    /**
+     * Send the exchange asynchronously, waiting for a free slot in the in-flight window first.
+     *
+     * @param producerTemplate The producer template to send with.
+     * @param endpoint         The target endpoint.
+     * @param exchange         The exchange to send.
+     * @param executor         The executor to send on, or <code>null</code> to send on the producer template's executor.
+     * @param orderKey         The key of the exchanges to keep in order, or <code>null</code>. Only applies when sending
+     *                         on an executor.
+     * @throws InterruptedException Interrupted while waiting for a free slot.
+     */
+    void send(final ProducerTemplate producerTemplate, final Endpoint endpoint, final Exchange exchange, final Executor executor, final Object orderKey) throws InterruptedException {
+        permits.acquire();
+        final long sendStart = routeMetrics.isEnabled() ? System.nanoTime() : 0;
+        final CompletableFuture<Exchange> future;
+        try {
+            if (executor == null) {
+                future = producerTemplate.asyncSend(endpoint, exchange);
+            } else if (orderKey == null) {
+                future = CompletableFuture.supplyAsync(() -> producerTemplate.send(endpoint, exchange), executor);
+            } else {
+                future = orderedExchanges.compute(orderKey, (key, previous) -> previous == null ?
+                        CompletableFuture.supplyAsync(() -> producerTemplate.send(endpoint, exchange), executor) :
+                        previous.handle((previousExchange, throwable) -> null).thenApplyAsync(ignored -> producerTemplate.send(endpoint, exchange), executor));
+            }
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        future.whenComplete((completedExchange, throwable) -> {
+            if (throwable != null) {
+                failure.compareAndSet(null, throwable);
+                routeMetrics.recordFailure();
+            } else if (completedExchange.getException() != null) {
+                failure.compareAndSet(null, completedExchange.getException());
+                routeMetrics.recordFailure();
+            } else if (routeMetrics.isEnabled()) {
+                routeMetrics.recordRouted(System.nanoTime() - sendStart);
+            }
+            if (orderKey != null) {
+                orderedExchanges.remove(orderKey, future);
+            }
+            permits.release();
+        });
+    }
+
+    /**
+     * Wait for all the exchanges sent so far to complete.
+     *
+     * @throws InterruptedException Interrupted while waiting.
+     */
+    void await() throws InterruptedException {
+        permits.acquire(maxInFlight);
+        permits.release(maxInFlight);
+    }
+
+    /**
+     * @return The first failure of an exchange sent so far, or <code>null</code>.
+     */
+    Throwable getFailure() {
+        return failure.get();
+    }
+}
@@ -0,0 +1,139 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.converters;
+
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.cartridges.camel.Coordinate;
+import org.smooks.cartridges.camel.dataformat.SmooksDataFormat;
+import org.smooks.cartridges.camel.processor.SmooksProcessor;
+import org.smooks.cartridges.javabean.Bean;
+import org.smooks.io.payload.JavaResult;
+import org.smooks.io.payload.StringSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit test for {@link ResultMapTypeConverters}.
+ */
+public class ResultMapTypeConvertersTest {
+    private DefaultCamelContext camelContext;
+    private Smooks smooks;
+
+    @BeforeEach
+    public void beforeEach() {
+        camelContext = new DefaultCamelContext();
+        camelContext.start();
+        smooks = new Smooks();
+        smooks.addVisitors(new Bean(Coordinate.class, "coordinate", "coord", smooks.getApplicationContext().getRegistry())
+                .bindTo("x", "coord/@x")
+                .bindTo("y", "coord/@y"));
+    }
+
+    @AfterEach
+    public void afterEach() {
+        smooks.close();
+        camelContext.stop();
+    }
+
+    @Test
+    public void registersDirectConverterOfDeclaredBeanClass() {
+        assertNull(camelContext.getTypeConverterRegistry().lookup(Coordinate.class, JavaResult.ResultMap.class));
+
+        ResultMapTypeConverters.register(camelContext, smooks);
+
+        assertNotNull(camelContext.getTypeConverterRegistry().lookup(Coordinate.class, JavaResult.ResultMap.class));
+    }
+
+    @Test
+    public void unregistersConverterOnceNoSmooksIsLeft() {
+        ResultMapTypeConverters.register(camelContext, smooks);
+        ResultMapTypeConverters.register(camelContext, smooks);
+
+        ResultMapTypeConverters.unregister(camelContext, smooks);
+        assertNotNull(camelContext.getTypeConverterRegistry().lookup(Coordinate.class, JavaResult.ResultMap.class));
+
+        ResultMapTypeConverters.unregister(camelContext, smooks);
+        assertNull(camelContext.getTypeConverterRegistry().lookup(Coordinate.class, JavaResult.ResultMap.class));
+    }
+
+    @Test
+    public void smooksProcessorRegistersConvertersUntilStopped() throws Exception {
+        final SmooksProcessor smooksProcessor = new SmooksProcessor("stream_01.xml", camelContext);
+
+        smooksProcessor.start();
+        assertNotNull(camelContext.getTypeConverterRegistry().lookup(Coordinate.class, JavaResult.ResultMap.class));
+
+        smooksProcessor.stop();
+        assertNull(camelContext.getTypeConverterRegistry().lookup(Coordinate.class, JavaResult.ResultMap.class));
+    }
+
+    @Test
+    public void smooksDataFormatRegistersConvertersUntilStopped() throws Exception {
+        final SmooksDataFormat smooksDataFormat = new SmooksDataFormat("stream_01.xml");
+        smooksDataFormat.setCamelContext(camelContext);
+
+        smooksDataFormat.start();
+        assertNotNull(camelContext.getTypeConverterRegistry().lookup(Coordinate.class, JavaResult.ResultMap.class));
+
+        smooksDataFormat.stop();
+        assertNull(camelContext.getTypeConverterRegistry().lookup(Coordinate.class, JavaResult.ResultMap.class));
+    }
+
+    @Test
+    public void convertsResultMapToDeclaredBeanClass() {
+        ResultMapTypeConverters.register(camelContext, smooks);
+        final JavaResult javaResult = new JavaResult();
+        smooks.filterSource(new StringSource("<coord x='1' y='2'/>"), javaResult);
+
+        final JavaResult.ResultMap<String, Object> resultMap = new JavaResult.ResultMap<>();
+        resultMap.putAll(javaResult.getResultMap());
+
+        assertEquals(new Coordinate(1, 2), camelContext.getTypeConverter().convertTo(Coordinate.class, resultMap));
+    }
+}
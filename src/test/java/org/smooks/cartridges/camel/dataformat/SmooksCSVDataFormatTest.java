@@ -60,6 +60,7 @@ import java.util.List;
 
 import static org.apache.camel.component.mock.MockEndpoint.assertIsSatisfied;
 import static org.apache.camel.test.junit5.TestSupport.assertIsInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -104,6 +105,16 @@ public class SmooksCSVDataFormatTest extends CamelTestSupport {
         assertEquals(charlesExpected, charlesActual);
     }
 
+    @Test
+    public void unmarshalCSVStreaming() throws Exception {
+        result.expectedBodiesReceived(chrisExpected, charlesExpected);
+
+        template.sendBody("direct:unmarshalStreaming", "christian,mueller,Male,33,germany\n" +
+                "charles,moulliard,Male,43,belgium\n");
+
+        assertIsSatisfied();
+    }
+
     @Test
     public void marshalCSV() throws Exception {
         result.expectedMessageCount(1);
@@ -124,6 +135,25 @@ public class SmooksCSVDataFormatTest extends CamelTestSupport {
                 "charles,moulliard,Male,43,belgium\n", exchange.getIn().getBody(String.class));
     }
 
+    @Test
+    public void marshalCSVWithCharsetName() throws Exception {
+        result.expectedMessageCount(1);
+
+        final List<Customer> customerList = new ArrayList<Customer>();
+        customerList.add(chrisExpected);
+        customerList.add(charlesExpected);
+
+        template.send(marshal, exchange -> {
+            exchange.getIn().setBody(customerList);
+            exchange.setProperty(Exchange.CHARSET_NAME, "Cp1047");
+        });
+
+        assertIsSatisfied();
+        Exchange exchange = result.assertExchangeReceived(0);
+        assertArrayEquals(("christian,mueller,Male,33,germany\n" +
+                "charles,moulliard,Male,43,belgium\n").getBytes("Cp1047"), exchange.getIn().getBody(byte[].class));
+    }
+
     protected RouteBuilder createRouteBuilder() throws Exception {
         return new RouteBuilder() {
             public void configure() throws Exception {
@@ -133,6 +163,15 @@ public class SmooksCSVDataFormatTest extends CamelTestSupport {
                         .unmarshal(csvUnmarshal).convertBodyTo(List.class)
                         .to("mock:result");
 
+                SmooksDataFormat csvStreamingUnmarshal = new SmooksDataFormat("csv-smooks-stream-config.xml");
+                csvStreamingUnmarshal.setStreamBeanId("customer");
+                csvStreamingUnmarshal.setStreamQueueSize(1);
+
+                from("direct:unmarshalStreaming")
+                        .unmarshal(csvStreamingUnmarshal)
+                        .split(body()).streaming()
+                        .to("mock:result");
+
                 SmooksDataFormat csvMarshal = new SmooksDataFormat("csv-smooks-marshal-config.xml");
                 from("direct:marshal").convertBodyTo(JavaSourceWithoutEventStream.class)
                         .marshal(csvMarshal)
@@ -107,6 +107,25 @@ public class SmooksDataFormatTest extends CamelTestSupport {
         assertEquals(Customer.class, exchange.getOut().getBody().getClass());
     }
 
+    @Test
+    public void unmarshalWithCharsetName() throws Exception {
+        final SmooksDataFormat orderDataFormat = new SmooksDataFormat("/org/smooks/cartridges/camel/dataformat/order-smooks-config.xml");
+        orderDataFormat.setCamelContext(camelContext);
+        orderDataFormat.start();
+        try {
+            final UnmarshalProcessor unmarshalProcessor = new UnmarshalProcessor(orderDataFormat);
+            final DefaultExchange exchange = new DefaultExchange(camelContext);
+            exchange.getIn().setBody(getClass().getResourceAsStream("/EBCDIC-input-message"));
+            exchange.setProperty(Exchange.CHARSET_NAME, "Cp1047");
+
+            unmarshalProcessor.process(exchange);
+
+            assertEquals("Joe", exchange.getMessage().getBody());
+        } finally {
+            orderDataFormat.stop();
+        }
+    }
+
     @Test
     public void marshal() throws Exception {
         final MarshalProcessor marshalProcessor = new MarshalProcessor(dataFormatter);
@@ -130,6 +149,30 @@ public class SmooksDataFormatTest extends CamelTestSupport {
                 hasDifferences());
     }
 
+    @Test
+    public void marshalStreaming() throws Exception {
+        dataFormatter.setStreamingMarshal(true);
+        final MarshalProcessor marshalProcessor = new MarshalProcessor(dataFormatter);
+        final DefaultExchange exchange = new DefaultExchange(camelContext);
+        final Customer customer = new Customer();
+        customer.setFirstName("John");
+        customer.setLastName("Cocktolstol");
+        customer.setGender(Gender.Male);
+        customer.setAge(35);
+        customer.setCountry("USA");
+
+        exchange.getIn().setBody(customer, JavaSource.class);
+
+        marshalProcessor.process(exchange);
+
+        assertFalse(DiffBuilder.compare(getCustomerXml(CUSTOMER_XML_EXPECTED)).
+                withTest(exchange.getOut().getBody(String.class)).
+                ignoreComments().
+                ignoreWhitespace().
+                build().
+                hasDifferences());
+    }
+
     @Test
     public void unmarshalMarshalThroughCamel() throws Exception {
         context.addRoutes(new RouteBuilder() {
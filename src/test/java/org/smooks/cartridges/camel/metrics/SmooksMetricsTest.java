@@ -0,0 +1,155 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.spi.Registry;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+import org.smooks.cartridges.camel.routing.ConditionStatistics;
+import org.smooks.io.payload.StringSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit test for {@link SmooksMetrics}.
+ */
+public class SmooksMetricsTest extends CamelTestSupport {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void getReturnsMicrometerMetricsWhenMeterRegistryIsBound() {
+        assertInstanceOf(MicrometerSmooksMetrics.class, SmooksMetrics.get(context));
+        assertSame(SmooksMetrics.get(context), SmooksMetrics.get(context));
+    }
+
+    @Test
+    public void getReturnsNoopMetricsWithoutMeterRegistry() throws Exception {
+        try (DefaultCamelContext camelContext = new DefaultCamelContext()) {
+            assertSame(NoopSmooksMetrics.INSTANCE, SmooksMetrics.get(camelContext));
+        }
+    }
+
+    @Test
+    public void getResolvesMeterRegistryBoundAfterFirstUse() throws Exception {
+        try (DefaultCamelContext camelContext = new DefaultCamelContext()) {
+            assertSame(NoopSmooksMetrics.INSTANCE, SmooksMetrics.get(camelContext));
+
+            camelContext.getRegistry().bind("meterRegistry", new SimpleMeterRegistry());
+
+            assertInstanceOf(MicrometerSmooksMetrics.class, SmooksMetrics.get(camelContext));
+        }
+    }
+
+    @Test
+    public void conditionCountersSumRoutersOfSameBeanIdAndEndpoint() {
+        final SmooksMetrics smooksMetrics = new MicrometerSmooksMetrics(meterRegistry);
+        final CountedConditionStatistics firstConditionStatistics = new CountedConditionStatistics(1, 1);
+        final CountedConditionStatistics secondConditionStatistics = new CountedConditionStatistics(2, 1);
+        final RouteMetrics firstRouteMetrics = smooksMetrics.forRoute("coordinate", "mock:shared", firstConditionStatistics);
+        smooksMetrics.forRoute("coordinate", "mock:shared", secondConditionStatistics);
+
+        assertEquals(3, meterRegistry.get(MicrometerSmooksMetrics.ROUTE_CONDITION_EVALUATIONS).tag("endpoint", "mock:shared").functionCounter().count());
+        assertEquals(2, meterRegistry.get(MicrometerSmooksMetrics.ROUTE_CONDITION_REJECTIONS).tag("endpoint", "mock:shared").functionCounter().count());
+
+        firstRouteMetrics.close();
+        firstConditionStatistics.evaluationCount++;
+        secondConditionStatistics.evaluationCount++;
+        assertEquals(4, meterRegistry.get(MicrometerSmooksMetrics.ROUTE_CONDITION_EVALUATIONS).tag("endpoint", "mock:shared").functionCounter().count());
+    }
+
+    @Test
+    public void processRecordsFilterAndRouteMetrics() {
+        template.sendBody("direct:input", new StringSource("<coords><coord x='1' y='2' /><coord x='3' y='4' /><coord x='5' y='6' /></coords>"));
+
+        for (FilterMetrics.Phase phase : FilterMetrics.Phase.values()) {
+            if (phase != FilterMetrics.Phase.RESULT) {
+                assertEquals(1, meterRegistry.get(MicrometerSmooksMetrics.FILTER_TIMER).tag("processor", "bean_routing_04.xml").tag("phase", phase.name().toLowerCase()).timer().count());
+            }
+        }
+        assertEquals(0, meterRegistry.get(MicrometerSmooksMetrics.FILTER_FAILURES).counter().count());
+        assertEquals(2, meterRegistry.get(MicrometerSmooksMetrics.ROUTE_TIMER).tag("endpoint", "mock:big").timer().count());
+        assertEquals(1, meterRegistry.get(MicrometerSmooksMetrics.ROUTE_TIMER).tag("endpoint", "mock:small").timer().count());
+        assertEquals(1, meterRegistry.get(MicrometerSmooksMetrics.ROUTE_CONDITION_REJECTIONS).tag("endpoint", "mock:big").functionCounter().count());
+        assertEquals(2, meterRegistry.get(MicrometerSmooksMetrics.ROUTE_CONDITION_REJECTIONS).tag("endpoint", "mock:small").functionCounter().count());
+    }
+
+    private static final class CountedConditionStatistics extends ConditionStatistics {
+        private long evaluationCount;
+        private final long falseCount;
+
+        private CountedConditionStatistics(final long evaluationCount, final long falseCount) {
+            this.evaluationCount = evaluationCount;
+            this.falseCount = falseCount;
+        }
+
+        @Override
+        public long getEvaluationCount() {
+            return evaluationCount;
+        }
+
+        @Override
+        public long getFalseCount() {
+            return falseCount;
+        }
+    }
+
+    @Override
+    protected void bindToRegistry(final Registry registry) {
+        registry.bind("meterRegistry", meterRegistry);
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                from("direct:input").to("smooks://bean_routing_04.xml");
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.io.payload.Export;
+import org.smooks.io.payload.Exports;
+import org.smooks.io.payload.JavaResult;
+import org.smooks.io.payload.StringResult;
+
+import javax.xml.transform.Result;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for {@link ExportResults}.
+ */
+public class ExportResultsTest {
+
+    @Test
+    public void createResultsCreatesResultPerExport() {
+        final ExportResults exportResults = new ExportResults(new Exports(new HashSet<>(Arrays.asList(new Export(StringResult.class), new Export(JavaResult.class)))));
+        final Result[] results = exportResults.createResults();
+
+        assertTrue(exportResults.hasExports());
+        assertEquals(2, results.length);
+        assertThat(exportResults.extractResults(results), instanceOf(List.class));
+    }
+
+    @Test
+    public void extractResultsReturnsSingleResult() throws Exception {
+        final ExportResults exportResults = new ExportResults(new Exports(StringResult.class));
+        final Result[] results = exportResults.createResults();
+        ((StringResult) results[0]).getWriter().write("foo");
+
+        assertEquals("foo", exportResults.extractResults(results));
+    }
+
+    @Test
+    public void releaseReusesStringResult() throws Exception {
+        final ExportResults exportResults = new ExportResults(new Exports(StringResult.class));
+        final Result[] results = exportResults.createResults();
+        ((StringResult) results[0]).getWriter().write("foo");
+        exportResults.release(results, exportResults.extractResults(results));
+
+        final Result[] reusedResults = exportResults.createResults();
+        assertSame(results[0], reusedResults[0]);
+        assertEquals("", ((StringResult) reusedResults[0]).getResult());
+        assertNotSame(reusedResults[0], exportResults.createResults()[0]);
+    }
+
+    @Test
+    public void releaseDiscardsLargeStringResult() {
+        final ExportResults exportResults = new ExportResults(new Exports(StringResult.class));
+        final Result[] results = exportResults.createResults();
+        ((StringWriter) ((StringResult) results[0]).getWriter()).getBuffer().ensureCapacity(ExportResults.MAX_REUSED_STRING_RESULT_CAPACITY + 1);
+        exportResults.release(results, exportResults.extractResults(results));
+
+        assertNotSame(results[0], exportResults.createResults()[0]);
+    }
+
+    @Test
+    public void releaseKeepsEscapedStringResult() throws Exception {
+        final ExportResults exportResults = new ExportResults(new Exports(StringResult.class));
+        final Result[] results = exportResults.createResults();
+        ((StringResult) results[0]).getWriter().write("foo");
+        exportResults.release(results, results[0]);
+
+        assertNotSame(results[0], exportResults.createResults()[0]);
+        assertEquals("foo", ((StringResult) results[0]).getResult());
+    }
+
+    @Test
+    public void clearStopsReuse() {
+        final ExportResults exportResults = new ExportResults(new Exports(StringResult.class));
+        final Result[] results = exportResults.createResults();
+        exportResults.release(results, exportResults.extractResults(results));
+        exportResults.clear();
+
+        assertNotSame(results[0], exportResults.createResults()[0]);
+        final Result[] clearedResults = exportResults.createResults();
+        exportResults.release(clearedResults, exportResults.extractResults(clearedResults));
+        assertNotSame(clearedResults[0], exportResults.createResults()[0]);
+    }
+
+    @Test
+    public void hasExportsIsFalseWithoutExports() {
+        assertFalse(new ExportResults(new Exports()).hasExports());
+    }
+}
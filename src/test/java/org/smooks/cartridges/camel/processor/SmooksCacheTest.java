@@ -0,0 +1,184 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.SmooksFactory;
+import org.smooks.api.SmooksException;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test for {@link SmooksCache}.
+ */
+public class SmooksCacheTest extends CamelTestSupport {
+    private static final String SMOOKS_CONFIG = "edi-to-xml-smooks-config.xml";
+
+    @Test
+    public void acquireSharesSmooksUntilReleased() {
+        final SmooksCache smooksCache = SmooksCache.get(context);
+        final int referenceCount = smooksCache.getReferenceCount(SMOOKS_CONFIG);
+
+        final Smooks smooks = smooksCache.acquire(SMOOKS_CONFIG);
+        assertSame(smooks, smooksCache.acquire(SMOOKS_CONFIG));
+        assertEquals(referenceCount + 2, smooksCache.getReferenceCount(SMOOKS_CONFIG));
+
+        smooksCache.release(SMOOKS_CONFIG);
+        smooksCache.release(SMOOKS_CONFIG);
+        assertEquals(referenceCount, smooksCache.getReferenceCount(SMOOKS_CONFIG));
+    }
+
+    @Test
+    public void releaseLastReferenceClosesSmooks() {
+        final SmooksCache smooksCache = SmooksCache.get(context);
+        final Smooks smooks = smooksCache.acquire("csv-smooks-unmarshal-config.xml");
+        smooksCache.release("csv-smooks-unmarshal-config.xml");
+
+        assertEquals(0, smooksCache.getReferenceCount("csv-smooks-unmarshal-config.xml"));
+        assertNotSame(smooks, smooksCache.acquire("csv-smooks-unmarshal-config.xml"));
+        smooksCache.release("csv-smooks-unmarshal-config.xml");
+    }
+
+    @Test
+    public void acquireFailsWhenConfigIsMissing() {
+        final SmooksCache smooksCache = SmooksCache.get(context);
+
+        assertThrows(SmooksException.class, () -> smooksCache.acquire("missing-smooks-config.xml"));
+        assertEquals(0, smooksCache.getReferenceCount("missing-smooks-config.xml"));
+    }
+
+    @Test
+    public void acquireWaitingOnFailedLoadRetries() throws Exception {
+        final String configUri = "csv-smooks-unmarshal-config.xml";
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch failLoading = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        context.getRegistry().bind(SmooksFactory.class.getName(), new SmooksFactory() {
+            @Override
+            public Smooks createInstance() {
+                return new Smooks();
+            }
+
+            @Override
+            public Smooks createInstance(final InputStream config) throws IOException, SAXException {
+                return new Smooks(config);
+            }
+
+            @Override
+            public Smooks createInstance(final String config) throws IOException, SAXException {
+                if (loads.getAndIncrement() == 0) {
+                    loading.countDown();
+                    try {
+                        failLoading.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new SAXException("Broken configuration");
+                }
+                return new Smooks(config);
+            }
+        });
+        final SmooksCache smooksCache = SmooksCache.get(context);
+
+        final FutureTask<Smooks> failingAcquire = new FutureTask<>(() -> smooksCache.acquire(configUri));
+        new Thread(failingAcquire).start();
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        final FutureTask<Smooks> waitingAcquire = new FutureTask<>(() -> smooksCache.acquire(configUri));
+        final Thread waitingThread = new Thread(waitingAcquire);
+        waitingThread.start();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (waitingThread.getState() != Thread.State.BLOCKED) {
+            assertTrue(System.nanoTime() < deadline, "Second acquire did not wait for the load");
+            Thread.sleep(10);
+        }
+        failLoading.countDown();
+
+        final ExecutionException failure = assertThrows(ExecutionException.class, () -> failingAcquire.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(SmooksException.class, failure.getCause());
+        final Smooks smooks = waitingAcquire.get(10, TimeUnit.SECONDS);
+        assertEquals(2, loads.get());
+        assertEquals(1, smooksCache.getReferenceCount(configUri));
+        assertSame(smooks, smooksCache.acquire(configUri));
+
+        smooksCache.release(configUri);
+        smooksCache.release(configUri);
+        assertEquals(0, smooksCache.getReferenceCount(configUri));
+    }
+
+    @Test
+    public void endpointsWithSameConfigShareSmooks() throws Exception {
+        final SmooksCache smooksCache = SmooksCache.get(context);
+        assertEquals(2, smooksCache.getReferenceCount(SMOOKS_CONFIG));
+
+        context.getEndpoint("smooks://" + SMOOKS_CONFIG + "?shareSmooks=true&readBufferSize=16384").stop();
+        assertEquals(1, smooksCache.getReferenceCount(SMOOKS_CONFIG));
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                from("direct:a").routeId("a").to("smooks://" + SMOOKS_CONFIG + "?shareSmooks=true");
+                from("direct:b").routeId("b").to("smooks://" + SMOOKS_CONFIG + "?shareSmooks=true&readBufferSize=16384");
+                from("direct:c").routeId("c").to("smooks://" + SMOOKS_CONFIG);
+            }
+        };
+    }
+}
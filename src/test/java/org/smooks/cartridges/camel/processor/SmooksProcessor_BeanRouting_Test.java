@@ -49,17 +49,28 @@ import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.test.junit5.CamelTestSupport;
 import org.junit.jupiter.api.Test;
 import org.smooks.Smooks;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
 import org.smooks.cartridges.camel.Coordinate;
 import org.smooks.cartridges.camel.routing.BeanRouter;
 import org.smooks.cartridges.javabean.Bean;
 import org.smooks.io.payload.StringSource;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 
 /**
  * Functional test for {@link SmooksProcessor} which test bean routing configured
@@ -125,6 +136,279 @@ public class SmooksProcessor_BeanRouting_Test extends CamelTestSupport {
         assertThat(messageB.getHeader(CORRELATION_ID), equalTo(messageC.getHeader(CORRELATION_ID)));
     }
 
+    @Test
+    public void processSmooksXmlConfiguredAsync() throws Exception {
+        final String fromEndpoint = "direct:a3";
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from(fromEndpoint).to("smooks://bean_routing_02.xml");
+            }
+        });
+        context.start();
+        final MockEndpoint mockEndpoint = getMockEndpoint("mock:async");
+        mockEndpoint.expectedMessageCount(3);
+
+        sendBody(fromEndpoint, new StringSource("<coords><coord x='1' y='2' /><coord x='3' y='4' /><coord x='5' y='6' /></coords>"));
+
+        mockEndpoint.assertIsSatisfied();
+        assertThat(getBodies(mockEndpoint.getExchanges()), hasItems(new Coordinate(1, 2), new Coordinate(3, 4), new Coordinate(5, 6)));
+    }
+
+    @Test
+    public void processSmooksProgrammaticConfigureAsyncFailure() throws Exception {
+        final String fromEndpoint = "direct:a4";
+        final String toEndpoint = "direct:failing";
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                Smooks smooks = new Smooks();
+                final SmooksProcessor smooksProcessor = new SmooksProcessor(smooks, context);
+
+                final String beanId = "coordinate";
+                final String selector = "coords/coord";
+                final Bean bean = new Bean(Coordinate.class, beanId, selector, smooks.getApplicationContext().getRegistry());
+                bean.bindTo("x", "coords/coord/@x").bindTo("y", "coords/coord/@y");
+                smooksProcessor.addVisitor(bean);
+
+                final BeanRouter camelBeanRouter = new BeanRouter(context);
+                camelBeanRouter.setBeanId(beanId).setToEndpoint(toEndpoint).setAsync(true).setMaxInFlight(1);
+                smooksProcessor.addVisitor(camelBeanRouter, selector);
+
+                from(fromEndpoint).process(smooksProcessor);
+                from(toEndpoint).throwException(new IllegalStateException("Delivery failed"));
+            }
+        });
+        context.start();
+
+        final Exchange exchange = template.send(fromEndpoint, e -> e.getIn().setBody(new StringSource("<coords><coord x='1' y='2' /></coords>")));
+
+        assertThat(exchange.getException(), instanceOf(SmooksException.class));
+        Throwable rootCause = exchange.getException();
+        while (rootCause.getCause() != null) {
+            rootCause = rootCause.getCause();
+        }
+        assertThat(rootCause, instanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    public void processSmooksProgrammaticConfigureCorrelationIdFailure() throws Exception {
+        final String fromEndpoint = "direct:a10";
+        final String toEndpoint = "direct:failingCorrelated";
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                Smooks smooks = new Smooks();
+                final SmooksProcessor smooksProcessor = new SmooksProcessor(smooks, context);
+
+                final String beanId = "coordinate";
+                final String selector = "coords/coord";
+                final Bean bean = new Bean(Coordinate.class, beanId, selector, smooks.getApplicationContext().getRegistry());
+                bean.bindTo("x", "coords/coord/@x").bindTo("y", "coords/coord/@y");
+                smooksProcessor.addVisitor(bean);
+
+                final BeanRouter camelBeanRouter = new BeanRouter(context);
+                camelBeanRouter.setBeanId(beanId).setToEndpoint(toEndpoint)
+                        .setCorrelationIdName(CORRELATION_ID).setCorrelationIdPattern("${PUUID.execContext}");
+                smooksProcessor.addVisitor(camelBeanRouter, selector);
+
+                from(fromEndpoint).process(smooksProcessor);
+                from(toEndpoint).throwException(new IllegalStateException("Delivery failed"));
+            }
+        });
+        context.start();
+
+        final Exchange exchange = template.send(fromEndpoint, e -> e.getIn().setBody(new StringSource("<coords><coord x='1' y='2' /></coords>")));
+
+        assertThat(exchange.getException(), instanceOf(SmooksException.class));
+        Throwable rootCause = exchange.getException();
+        while (rootCause.getCause() != null) {
+            rootCause = rootCause.getCause();
+        }
+        assertThat(rootCause, instanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    public void processSmooksXmlConfiguredExecutorServicePreserveOrder() throws Exception {
+        final String fromEndpoint = "direct:a7";
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        context.getRegistry().bind("routingPool", executorService);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from(fromEndpoint).to("smooks://bean_routing_05.xml");
+                from("direct:parallel").process(exchange -> {
+                    Thread.sleep((5 - exchange.getIn().getBody(Coordinate.class).getY()) * 10L);
+                    exchange.getIn().setHeader("thread", Thread.currentThread().getName());
+                }).to("mock:parallel");
+            }
+        });
+        context.start();
+        final MockEndpoint mockEndpoint = getMockEndpoint("mock:parallel");
+        mockEndpoint.expectedMessageCount(8);
+
+        try {
+            sendBody(fromEndpoint, new StringSource("<coords><coord x='2' y='1' /><coord x='1' y='1' /><coord x='2' y='2' /><coord x='1' y='2' />" +
+                    "<coord x='2' y='3' /><coord x='1' y='3' /><coord x='2' y='4' /><coord x='1' y='4' /></coords>"));
+
+            mockEndpoint.assertIsSatisfied();
+            final List<Coordinate> bodies = getBodies(mockEndpoint.getExchanges());
+            for (int x = 1; x <= 2; x++) {
+                final int correlationId = x;
+                assertThat(bodies.stream().filter(coordinate -> coordinate.getX() == correlationId).map(Coordinate::getY).collect(Collectors.toList()), equalTo(Arrays.asList(1, 2, 3, 4)));
+            }
+            assertThat(mockEndpoint.getExchanges().get(0).getIn().getHeader("thread", String.class), not(equalTo(Thread.currentThread().getName())));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void processSmooksXmlConfiguredBatch() throws Exception {
+        final String fromEndpoint = "direct:a5";
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from(fromEndpoint).to("smooks://bean_routing_03.xml");
+            }
+        });
+        context.start();
+        final MockEndpoint mockEndpoint = getMockEndpoint("mock:batch");
+        mockEndpoint.expectedMessageCount(2);
+
+        sendBody(fromEndpoint, new StringSource("<coords><coord x='1' y='2' /><coord x='3' y='4' /><coord x='5' y='6' /></coords>"));
+
+        mockEndpoint.assertIsSatisfied();
+        assertThat(mockEndpoint.getExchanges().get(0).getIn().getBody(List.class), equalTo(Arrays.asList(new Coordinate(1, 2), new Coordinate(3, 4))));
+        assertThat(mockEndpoint.getExchanges().get(1).getIn().getBody(List.class), equalTo(Arrays.asList(new Coordinate(5, 6))));
+    }
+
+    @Test
+    public void processSmooksProgrammaticConfigureBatchTimeout() throws Exception {
+        final String fromEndpoint = "direct:a8";
+        final CountDownLatch batchRouted = new CountDownLatch(1);
+        final AtomicBoolean routedWhileFiltering = new AtomicBoolean();
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                Smooks smooks = new Smooks();
+                final SmooksProcessor smooksProcessor = new SmooksProcessor(smooks, context);
+
+                final String beanId = "coordinate";
+                final String selector = "coords/coord";
+                final Bean bean = new Bean(Coordinate.class, beanId, selector, smooks.getApplicationContext().getRegistry());
+                bean.bindTo("x", "coords/coord/@x").bindTo("y", "coords/coord/@y");
+                smooksProcessor.addVisitor(bean);
+
+                final BeanRouter batchBeanRouter = new BeanRouter(context);
+                batchBeanRouter.setBeanId(beanId).setToEndpoint("direct:timedOutBatch").setBatchSize(10).setBatchTimeout(50);
+                smooksProcessor.addVisitor(batchBeanRouter, selector);
+
+                // holds up filtering until the incomplete batch has been routed
+                smooksProcessor.addVisitor((AfterVisitor) (element, executionContext) -> {
+                    try {
+                        routedWhileFiltering.set(batchRouted.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "coords/wait");
+
+                from(fromEndpoint).process(smooksProcessor);
+                from("direct:timedOutBatch").to("mock:timedOutBatch").process(exchange -> batchRouted.countDown());
+            }
+        });
+        context.start();
+        final MockEndpoint mockEndpoint = getMockEndpoint("mock:timedOutBatch");
+        mockEndpoint.expectedMessageCount(1);
+
+        sendBody(fromEndpoint, new StringSource("<coords><coord x='1' y='2' /><wait /></coords>"));
+
+        mockEndpoint.assertIsSatisfied();
+        assertThat(routedWhileFiltering.get(), equalTo(true));
+        assertThat(mockEndpoint.getExchanges().get(0).getIn().getBody(List.class), equalTo(Arrays.asList(new Coordinate(1, 2))));
+        assertThat(mockEndpoint.getExchanges().get(0).getIn().getHeader("coordinate"), equalTo(new Coordinate(1, 2)));
+    }
+
+    @Test
+    public void processSmooksProgrammaticConfigureBatchTimeoutSlowEndpoint() throws Exception {
+        final String fromEndpoint = "direct:a9";
+        final CountDownLatch slowBatchRouting = new CountDownLatch(1);
+        final CountDownLatch fastBatchRouted = new CountDownLatch(1);
+        final CountDownLatch batchesRouted = new CountDownLatch(2);
+        final AtomicBoolean fastBatchRoutedFirst = new AtomicBoolean();
+        context.addRoutes(new RouteBuilder() {
+            public void configure() {
+                Smooks smooks = new Smooks();
+                final SmooksProcessor smooksProcessor = new SmooksProcessor(smooks, context);
+
+                final String beanId = "coordinate";
+                final String selector = "coords/coord";
+                final Bean bean = new Bean(Coordinate.class, beanId, selector, smooks.getApplicationContext().getRegistry());
+                bean.bindTo("x", "coords/coord/@x").bindTo("y", "coords/coord/@y");
+                smooksProcessor.addVisitor(bean);
+
+                final BeanRouter batchBeanRouter = new BeanRouter(context);
+                batchBeanRouter.setBeanId(beanId).setToEndpoint("direct:slowBatch").setBatchSize(10).setBatchTimeout(50);
+                smooksProcessor.addVisitor(batchBeanRouter, selector);
+
+                // holds up both executions until their incomplete batches have been routed
+                smooksProcessor.addVisitor((AfterVisitor) (element, executionContext) -> {
+                    try {
+                        batchesRouted.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "coords/wait");
+
+                from(fromEndpoint).process(smooksProcessor);
+                // the batch of the first execution is slow until the batch of the second execution is routed
+                from("direct:slowBatch").process(exchange -> {
+                    final Coordinate coordinate = (Coordinate) exchange.getIn().getBody(List.class).get(0);
+                    if (coordinate.equals(new Coordinate(1, 2))) {
+                        slowBatchRouting.countDown();
+                        fastBatchRoutedFirst.set(fastBatchRouted.await(10, TimeUnit.SECONDS));
+                    } else {
+                        fastBatchRouted.countDown();
+                    }
+                    batchesRouted.countDown();
+                }).to("mock:slowBatch");
+            }
+        });
+        context.start();
+        final MockEndpoint mockEndpoint = getMockEndpoint("mock:slowBatch");
+        mockEndpoint.expectedMessageCount(2);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            executorService.submit(() -> sendBody(fromEndpoint, new StringSource("<coords><coord x='1' y='2' /><wait /></coords>")));
+            assertThat(slowBatchRouting.await(10, TimeUnit.SECONDS), equalTo(true));
+            executorService.submit(() -> sendBody(fromEndpoint, new StringSource("<coords><coord x='3' y='4' /><wait /></coords>")));
+
+            mockEndpoint.assertIsSatisfied();
+        } finally {
+            executorService.shutdown();
+        }
+        assertThat(fastBatchRoutedFirst.get(), equalTo(true));
+    }
+
+    @Test
+    public void processSmooksXmlConfiguredConditionLanguage() throws Exception {
+        final String fromEndpoint = "direct:a6";
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from(fromEndpoint).to("smooks://bean_routing_04.xml");
+            }
+        });
+        context.start();
+        final MockEndpoint bigMockEndpoint = getMockEndpoint("mock:big");
+        bigMockEndpoint.expectedBodiesReceived(new Coordinate(3, 4), new Coordinate(5, 6));
+        final MockEndpoint smallMockEndpoint = getMockEndpoint("mock:small");
+        smallMockEndpoint.expectedBodiesReceived(new Coordinate(1, 2));
+
+        sendBody(fromEndpoint, new StringSource("<coords><coord x='1' y='2' /><coord x='3' y='4' /><coord x='5' y='6' /></coords>"));
+
+        bigMockEndpoint.assertIsSatisfied();
+        smallMockEndpoint.assertIsSatisfied();
+    }
+
     private Message getExchange(final MockEndpoint mockEndpoint) {
         return mockEndpoint.getExchanges().get(0).getIn();
     }
@@ -0,0 +1,97 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+import org.smooks.api.ExecutionContext;
+import org.smooks.io.payload.StringSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SmooksProcessor_ExecutionContextBinding_Test extends CamelTestSupport {
+
+    @Test
+    public void testHeader() {
+        Exchange exchange = template.request("direct:header", e -> e.getIn().setBody(new StringSource("<x/>")));
+
+        assertInstanceOf(ExecutionContext.class, exchange.getMessage().getHeader(SmooksProcessor.SMOOKS_EXECUTION_CONTEXT));
+        assertNull(exchange.getProperty(SmooksProcessor.SMOOKS_EXECUTION_CONTEXT));
+    }
+
+    @Test
+    public void testProperty() {
+        Exchange exchange = template.request("direct:property", e -> e.getIn().setBody(new StringSource("<x/>")));
+
+        assertNull(exchange.getMessage().getHeader(SmooksProcessor.SMOOKS_EXECUTION_CONTEXT));
+        assertInstanceOf(ExecutionContext.class, exchange.getProperty(SmooksProcessor.SMOOKS_EXECUTION_CONTEXT));
+    }
+
+    @Test
+    public void testNone() {
+        Exchange exchange = template.request("direct:none", e -> {
+            e.getIn().setBody(new StringSource("<x/>"));
+            e.getIn().setHeader("foo", "bar");
+        });
+
+        assertNull(exchange.getMessage().getHeader(SmooksProcessor.SMOOKS_EXECUTION_CONTEXT));
+        assertNull(exchange.getProperty(SmooksProcessor.SMOOKS_EXECUTION_CONTEXT));
+        assertEquals("bar", exchange.getMessage().getHeader("foo"));
+        assertEquals("<x/>", exchange.getMessage().getBody(String.class));
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                from("direct:header").to("smooks://bean_routing_01.xml?shareSmooks=false");
+                from("direct:property").to("smooks://bean_routing_01.xml?executionContextBinding=PROPERTY");
+                from("direct:none").to("smooks://bean_routing_01.xml?executionContextBinding=NONE");
+            }
+        };
+    }
+}
@@ -0,0 +1,160 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.EndpointInject;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.api.SmooksConfigException;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.cartridges.camel.component.SmooksEndpoint;
+import org.smooks.support.StreamUtils;
+import org.w3c.dom.Node;
+import org.xmlunit.builder.DiffBuilder;
+
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.camel.component.mock.MockEndpoint.assertIsSatisfied;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for {@link SmooksProcessor} filtering with a pool of Smooks instances.
+ */
+public class SmooksProcessor_Pool_Test extends CamelTestSupport {
+    private static final String SMOOKS_ENDPOINT_URI = "smooks://edi-to-xml-smooks-config.xml?poolSize=2";
+
+    @EndpointInject(value = "mock:result")
+    private MockEndpoint result;
+
+    @Test
+    public void processConcurrently() throws Exception {
+        result.expectedMessageCount(8);
+
+        final String orderEdi = StreamUtils.readStream(new InputStreamReader(getClass().getResourceAsStream("/data/order.edi")));
+        final List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(template.asyncSendBody("seda:input", orderEdi));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        assertIsSatisfied(result);
+
+        final String expectedOrderXml = StreamUtils.readStream(new InputStreamReader(getClass().getResourceAsStream("/xml/expected-order.xml")));
+        for (Exchange exchange : result.getExchanges()) {
+            assertFalse(DiffBuilder.compare(expectedOrderXml).withTest(exchange.getIn().getBody(String.class)).
+                    ignoreComments().
+                    ignoreWhitespace().
+                    build().
+                    hasDifferences());
+        }
+        final SmooksProcessor smooksProcessor = (SmooksProcessor) context.getEndpoint(SMOOKS_ENDPOINT_URI, SmooksEndpoint.class).getProcessor();
+        assertEquals(8, smooksProcessor.getPoolStatistics().getAcquireCount());
+    }
+
+    @Test
+    public void startFailsWhenSmooksInstanceIsPooled() {
+        final SmooksProcessor smooksProcessor = new SmooksProcessor(new Smooks(), context);
+        smooksProcessor.setPoolSize(2);
+
+        assertThrows(SmooksConfigException.class, smooksProcessor::start);
+    }
+
+    @Test
+    public void startFailsWhenAddedVisitorsArePooled() throws Exception {
+        final SmooksProcessor smooksProcessor = new SmooksProcessor("edi-to-xml-smooks-config.xml", context);
+        smooksProcessor.addVisitor((AfterVisitor) (element, executionContext) -> {
+        }, "Order");
+        smooksProcessor.setPoolSize(2);
+
+        assertThrows(SmooksConfigException.class, smooksProcessor::start);
+    }
+
+    @Test
+    public void closedPoolClosesSmooksOnReturn() {
+        final AtomicInteger closeCount = new AtomicInteger();
+        final SmooksPool smooksPool = new SmooksPool(2);
+        smooksPool.add(new ClosingCountSmooks(closeCount));
+        smooksPool.add(new ClosingCountSmooks(closeCount));
+        final Smooks checkedOutSmooks = smooksPool.poll();
+
+        smooksPool.close();
+        assertEquals(1, closeCount.get());
+
+        smooksPool.add(checkedOutSmooks);
+        assertEquals(2, closeCount.get());
+        assertNull(smooksPool.poll());
+    }
+
+    private static final class ClosingCountSmooks extends Smooks {
+        private final AtomicInteger closeCount;
+
+        private ClosingCountSmooks(final AtomicInteger closeCount) {
+            this.closeCount = closeCount;
+        }
+
+        @Override
+        public void close() {
+            closeCount.incrementAndGet();
+            super.close();
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                from("seda:input?concurrentConsumers=4").to(SMOOKS_ENDPOINT_URI).convertBodyTo(Node.class).to("mock:result");
+            }
+        };
+    }
+}
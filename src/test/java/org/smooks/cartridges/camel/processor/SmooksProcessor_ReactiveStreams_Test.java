@@ -0,0 +1,139 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.reactive.streams.api.CamelReactiveStreams;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.smooks.cartridges.camel.Coordinate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for publishing routed beans to a Camel reactive stream, with filtering held back by subscriber demand.
+ */
+public class SmooksProcessor_ReactiveStreams_Test extends CamelTestSupport {
+
+    private static final int COORD_COUNT = 10;
+    private static final int MAX_IN_FLIGHT = 2;
+
+    @Test
+    public void filteringWaitsForSubscriberDemand() throws Exception {
+        final CoordinateSubscriber subscriber = new CoordinateSubscriber();
+        CamelReactiveStreams.get(context).fromStream("coordinates", Coordinate.class).subscribe(subscriber);
+
+        final StringBuilder coords = new StringBuilder("<coords>");
+        for (int i = 0; i < COORD_COUNT; i++) {
+            coords.append("<coord x=\"").append(i).append("\" y=\"").append(i).append("\"/>");
+        }
+        coords.append("</coords>");
+        final CompletableFuture<Exchange> future = template.asyncSend("direct:input", exchange -> exchange.getIn().setBody(coords.toString()));
+
+        // 1 bean delivered on demand, then filtering blocks once 2 more are awaiting demand
+        assertTrue(subscriber.firstCoordinate.await(10, TimeUnit.SECONDS));
+        awaitInflightExchanges(1 + MAX_IN_FLIGHT);
+        assertFalse(future.isDone());
+        assertEquals(1, subscriber.coordinates.size());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertNull(future.get(10, TimeUnit.SECONDS).getException());
+        assertEquals(COORD_COUNT, subscriber.coordinates.size());
+    }
+
+    private void awaitInflightExchanges(final int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (context.getInflightRepository().size() != count) {
+            assertTrue(System.nanoTime() < deadline, "Expected " + count + " in-flight exchanges but was " + context.getInflightRepository().size());
+            Thread.sleep(10);
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                from("direct:input").to("smooks://bean_routing_06.xml");
+            }
+        };
+    }
+
+    private static class CoordinateSubscriber implements Subscriber<Coordinate> {
+
+        private final List<Coordinate> coordinates = new CopyOnWriteArrayList<>();
+        private final CountDownLatch firstCoordinate = new CountDownLatch(1);
+        private volatile Subscription subscription;
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(final Coordinate coordinate) {
+            coordinates.add(coordinate);
+            firstCoordinate.countDown();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+import org.smooks.api.SmooksException;
+import org.smooks.cartridges.camel.Coordinate;
+import org.smooks.support.StreamUtils;
+import org.w3c.dom.Node;
+import org.xmlunit.builder.DiffBuilder;
+
+import java.io.InputStreamReader;
+
+import static org.apache.camel.component.mock.MockEndpoint.assertIsSatisfied;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for the lazy, background and warmed-up startup of {@link SmooksProcessor}.
+ */
+public class SmooksProcessor_Startup_Test extends CamelTestSupport {
+    private static final String SMOOKS_CONFIG = "edi-to-xml-smooks-config.xml";
+
+    @Test
+    public void lazyStartupLoadsConfigOnFirstExchange() throws Exception {
+        addSmooksRoute("smooks://" + SMOOKS_CONFIG + "?shareSmooks=true&lazyStartup=true");
+        context.start();
+        assertEquals(0, SmooksCache.get(context).getReferenceCount(SMOOKS_CONFIG));
+
+        assertOrderXml(template.requestBody("direct:input", readOrderEdi(), Node.class));
+        assertEquals(1, SmooksCache.get(context).getReferenceCount(SMOOKS_CONFIG));
+    }
+
+    @Test
+    public void backgroundStartupMakesFirstExchangeWait() throws Exception {
+        addSmooksRoute("smooks://" + SMOOKS_CONFIG + "?shareSmooks=true&backgroundStartup=true");
+        context.start();
+
+        assertOrderXml(template.requestBody("direct:input", readOrderEdi(), Node.class));
+        assertEquals(1, SmooksCache.get(context).getReferenceCount(SMOOKS_CONFIG));
+    }
+
+    @Test
+    public void warmUpDoesNotRouteSampleBeans() throws Exception {
+        addSmooksRoute("smooks://bean_routing_01.xml?warmUpUri=classpath:warmup/coords.xml");
+        final MockEndpoint mockEndpoint = getMockEndpoint("mock:b");
+        mockEndpoint.expectedBodiesReceived(new Coordinate(1, 2));
+
+        context.start();
+        template.sendBody("direct:input", getClass().getResourceAsStream("/warmup/coords.xml"));
+        assertIsSatisfied(mockEndpoint);
+    }
+
+    @Test
+    public void processAfterStopFails() throws Exception {
+        final SmooksProcessor smooksProcessor = new SmooksProcessor(SMOOKS_CONFIG, context);
+        smooksProcessor.setLazyStartup(true);
+        smooksProcessor.start();
+        smooksProcessor.stop();
+
+        assertThrows(SmooksException.class, () -> smooksProcessor.process(new DefaultExchange(context)));
+    }
+
+    private void addSmooksRoute(final String smooksEndpointUri) throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:input").to(smooksEndpointUri);
+            }
+        });
+    }
+
+    private String readOrderEdi() throws Exception {
+        return StreamUtils.readStream(new InputStreamReader(getClass().getResourceAsStream("/data/order.edi")));
+    }
+
+    private void assertOrderXml(final Node orderXml) throws Exception {
+        final String expectedOrderXml = StreamUtils.readStream(new InputStreamReader(getClass().getResourceAsStream("/xml/expected-order.xml")));
+        assertFalse(DiffBuilder.compare(expectedOrderXml).withTest(orderXml).
+                ignoreComments().
+                ignoreWhitespace().
+                build().
+                hasDifferences());
+    }
+
+    @Override
+    public boolean isUseRouteBuilder() {
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+import org.smooks.api.SmooksException;
+import org.smooks.cartridges.camel.Coordinate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.camel.component.mock.MockEndpoint.assertIsSatisfied;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Test for the bean streaming of {@link SmooksProcessor}.
+ */
+public class SmooksProcessor_Stream_Test extends CamelTestSupport {
+
+    private static final int COORD_COUNT = 1000;
+
+    @Test
+    public void testStreamedBeansAreSplitInOrder() throws Exception {
+        final MockEndpoint mockEndpoint = getMockEndpoint("mock:coordinate");
+        final List<Coordinate> expectedCoordinates = new ArrayList<>();
+        final StringBuilder coords = new StringBuilder("<coords>");
+        for (int i = 0; i < COORD_COUNT; i++) {
+            expectedCoordinates.add(new Coordinate(i, i + 1));
+            coords.append("<coord x=\"").append(i).append("\" y=\"").append(i + 1).append("\"/>");
+        }
+        coords.append("</coords>");
+        mockEndpoint.expectedBodiesReceived(expectedCoordinates);
+
+        template.sendBody("direct:input", coords.toString());
+
+        assertIsSatisfied(mockEndpoint);
+    }
+
+    @Test
+    public void testFilteringFailureFailsExchange() {
+        final Exchange exchange = template.send("direct:input", e -> e.getIn().setBody("<coords><coord x=\"1\" y=\"2\"/><coord x=\"a\" y=\"b\"/></coords>"));
+
+        assertInstanceOf(SmooksException.class, exchange.getException());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            public void configure() {
+                from("direct:input")
+                        .to("smooks://stream_01.xml?streamBeanId=coordinate&streamQueueSize=10")
+                        .split(body()).streaming().stopOnException()
+                        .to("mock:coordinate");
+            }
+        };
+    }
+}
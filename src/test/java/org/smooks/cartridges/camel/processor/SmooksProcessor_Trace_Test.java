@@ -0,0 +1,149 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.processor;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.smooks.Smooks;
+import org.smooks.io.payload.StringSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link SmooksProcessor} execution tracing.
+ */
+public class SmooksProcessor_Trace_Test extends CamelTestSupport {
+    private static final String COORDS = "<coords><coord x='1' y='2' /><coord x='3' y='4' /></coords>";
+
+    @TempDir
+    Path traceDir;
+
+    @Test
+    public void traceSampledExchangesWithEvents() throws Exception {
+        final Path tracePath = traceDir.resolve("traces.jsonl");
+        addSmooksRoute("smooks://bean_routing_04.xml?tracePath=" + tracePath + "&traceSampleRate=2");
+        context.start();
+        for (int i = 0; i < 4; i++) {
+            template.sendBody("direct:input", new StringSource(COORDS));
+        }
+        context.stop();
+
+        final List<String> traces = Files.readAllLines(tracePath);
+        assertEquals(2, traces.size());
+        for (String trace : traces) {
+            assertTrue(trace.startsWith("{\"timestamp\":"));
+            assertTrue(trace.contains("\"processor\":\"bean_routing_04.xml\""));
+            assertTrue(trace.contains("\"failed\":false"));
+            assertTrue(trace.contains("\"events\":["));
+        }
+        assertTrue(traces.get(0).contains("\"resource\":\"org.smooks.cartridges.javabean.BeanInstanceCreator\""));
+        assertTrue(traces.get(0).contains("\"element\":\"coord\""));
+    }
+
+    @Test
+    public void traceOnlySlowExchanges() throws Exception {
+        final Path tracePath = traceDir.resolve("slow-traces.jsonl");
+        addSmooksRoute("smooks://bean_routing_04.xml?tracePath=" + tracePath + "&traceThreshold=60000");
+        context.start();
+        template.sendBody("direct:input", new StringSource(COORDS));
+        context.stop();
+
+        assertTrue(Files.exists(tracePath));
+        assertFalse(Files.readAllLines(tracePath).iterator().hasNext());
+    }
+
+    @Test
+    public void tracesBeyondPendingLimitAreCounted() throws Exception {
+        final Path tracePath = traceDir.resolve("dropped-traces.jsonl");
+        final ExecutionTracer executionTracer = new ExecutionTracer(context, tracePath.toString(), 1, 0, "dropping", 0);
+        executionTracer.start();
+        try (Smooks smooks = new Smooks()) {
+            for (int i = 0; i < 3; i++) {
+                executionTracer.end(executionTracer.begin(smooks.createExecutionContext()), new DefaultExchange(context), false);
+            }
+        }
+        executionTracer.stop();
+
+        assertEquals(3, executionTracer.getDroppedTraceCount());
+        assertFalse(Files.readAllLines(tracePath).iterator().hasNext());
+    }
+
+    @Test
+    public void endAfterStopIsIgnored() throws Exception {
+        final Path tracePath = traceDir.resolve("stopped-traces.jsonl");
+        final ExecutionTracer executionTracer = new ExecutionTracer(context, tracePath.toString(), 1, 0, "stopped");
+        executionTracer.start();
+        final ExecutionTraceRecorder executionTraceRecorder;
+        try (Smooks smooks = new Smooks()) {
+            executionTraceRecorder = executionTracer.begin(smooks.createExecutionContext());
+        }
+        executionTracer.stop();
+
+        executionTracer.end(executionTraceRecorder, new DefaultExchange(context), false);
+
+        assertFalse(Files.readAllLines(tracePath).iterator().hasNext());
+    }
+
+    private void addSmooksRoute(final String smooksEndpointUri) throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:input").to(smooksEndpointUri);
+            }
+        });
+    }
+
+    @Override
+    public boolean isUseRouteBuilder() {
+        return false;
+    }
+}
@@ -48,9 +48,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.smooks.api.bean.lifecycle.BeanContextLifecycleEvent;
 import org.smooks.api.bean.lifecycle.BeanLifecycle;
+import org.smooks.cartridges.javabean.BeanMapExpressionEvaluator;
 import org.smooks.engine.bean.repository.DefaultBeanId;
 import org.smooks.testkit.MockExecutionContext;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -93,4 +95,37 @@ public class BeanRouterObserverTest extends CamelTestSupport {
         endpoint.expectedBodiesReceived(sampleBean);
     }
 
+    @Test
+    public void onBeanLifecycleEventConditionStatistics() throws Exception {
+        final String beanId = "orderId";
+        final BeanRouter beanRouter = new BeanRouter(context);
+
+        beanRouter.setBeanId(beanId);
+        beanRouter.setToEndpoint(ENDPOINT_URI);
+        beanRouter.postConstruct();
+
+        final BeanRouterObserver beanRouterObserver = new BeanRouterObserver(beanRouter, beanId);
+        final MockExecutionContext smooksExecutionContext = new MockExecutionContext();
+        final BeanContextLifecycleEvent event = mock(BeanContextLifecycleEvent.class);
+
+        when(event.getBeanId()).thenReturn(new DefaultBeanId(null, 0, beanId));
+        when(event.getLifecycle()).thenReturn(BeanLifecycle.END_FRAGMENT);
+        when(event.getBean()).thenReturn("testOrder");
+        when(event.getExecutionContext()).thenReturn(smooksExecutionContext);
+
+        endpoint.setExpectedMessageCount(1);
+        smooksExecutionContext.getBeanContext().addBean(beanId, "testOrder");
+        beanRouterObserver.setConditionEvaluator(new BeanMapExpressionEvaluator("orderId == 'testOrder'"));
+        beanRouterObserver.onBeanLifecycleEvent(event);
+        beanRouterObserver.setConditionEvaluator(new BeanMapExpressionEvaluator("orderId == 'otherOrder'"));
+        beanRouterObserver.onBeanLifecycleEvent(event);
+        beanRouterObserver.setConditionEvaluator(new BeanMapExpressionEvaluator("missing.total > 100"));
+        beanRouterObserver.onBeanLifecycleEvent(event);
+        endpoint.assertIsSatisfied();
+
+        assertEquals(3, beanRouterObserver.getConditionStatistics().getEvaluationCount());
+        assertEquals(2, beanRouterObserver.getConditionStatistics().getFalseCount());
+        assertEquals(1, beanRouterObserver.getConditionStatistics().getErrorCount());
+    }
+
 }
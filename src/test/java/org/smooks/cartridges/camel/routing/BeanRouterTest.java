@@ -91,6 +91,22 @@ public class BeanRouterTest extends CamelTestSupport {
         endpoint.assertIsSatisfied();
     }
 
+    @Test
+    public void visitAfterResolvesEndpointAgainOncePoolRestarted() throws Exception {
+        final BeanRouter beanRouter = createBeanRouter(BEAN_ID, END_POINT_URI);
+        beanRouter.visitAfter(null, smooksExecutionContext);
+
+        final EndpointProducerPool endpointProducerPool = EndpointProducerPool.get(context);
+        endpointProducerPool.stop();
+        context.removeEndpoint(endpoint);
+        endpointProducerPool.start();
+
+        final MockEndpoint restartedEndpoint = getMockEndpoint(END_POINT_URI);
+        restartedEndpoint.setExpectedMessageCount(1);
+        beanRouter.visitAfter(null, smooksExecutionContext);
+        restartedEndpoint.assertIsSatisfied();
+    }
+
     @Test
     public void visitAfterWithMissingBeanInSmookBeanContext() throws SmooksException {
         when(beanContext.getBean(BEAN_ID)).thenReturn(null);
@@ -136,6 +152,47 @@ public class BeanRouterTest extends CamelTestSupport {
         endpoint.assertIsSatisfied();
     }
 
+    @Test
+    public void routeBeanWithSelectedHeaders() throws Exception {
+        endpoint.setExpectedMessageCount(1);
+        endpoint.expectedHeaderReceived(HEADER_ID, myBean);
+        endpoint.expectedMessagesMatches(exchange -> !exchange.getIn().getHeaders().containsKey(BEAN_ID));
+
+        final Smooks smooks = new Smooks();
+        final ExecutionContext execContext = smooks.createExecutionContext();
+
+        BeanRouter beanRouter = createBeanRouter(null, BEAN_ID, END_POINT_URI, HEADER_ID);
+        beanRouter.onPreExecution(execContext);
+        execContext.getBeanContext().addBean(BEAN_ID, myBean);
+        execContext.getBeanContext().addBean(HEADER_ID, myBean);
+
+        // Force an END event
+        execContext.getBeanContext().notifyObservers(new DefaultBeanContextLifecycleEvent(execContext,
+                null, BeanLifecycle.END_FRAGMENT, execContext.getBeanContext().getBeanId(BEAN_ID), myBean));
+
+        endpoint.assertIsSatisfied();
+    }
+
+    @Test
+    public void routeBeanWithoutHeaders() throws Exception {
+        endpoint.setExpectedMessageCount(1);
+        endpoint.expectedMessagesMatches(exchange -> !exchange.getIn().getHeaders().containsKey(BEAN_ID) && !exchange.getIn().getHeaders().containsKey(HEADER_ID));
+
+        final Smooks smooks = new Smooks();
+        final ExecutionContext execContext = smooks.createExecutionContext();
+
+        BeanRouter beanRouter = createBeanRouter(null, BEAN_ID, END_POINT_URI, BeanRouter.HEADERS_NONE);
+        beanRouter.onPreExecution(execContext);
+        execContext.getBeanContext().addBean(BEAN_ID, myBean);
+        execContext.getBeanContext().addBean(HEADER_ID, myBean);
+
+        // Force an END event
+        execContext.getBeanContext().notifyObservers(new DefaultBeanContextLifecycleEvent(execContext,
+                null, BeanLifecycle.END_FRAGMENT, execContext.getBeanContext().getBeanId(BEAN_ID), myBean));
+
+        endpoint.assertIsSatisfied();
+    }
+
     @BeforeEach
     public void beforeEach() throws Exception {
         endpoint = createAndConfigureMockEndpoint(END_POINT_URI);
@@ -180,6 +237,10 @@ public class BeanRouterTest extends CamelTestSupport {
     }
 
     private BeanRouter createBeanRouter(String selector, String beanId, String endpointUri) {
+        return createBeanRouter(selector, beanId, endpointUri, null);
+    }
+
+    private BeanRouter createBeanRouter(String selector, String beanId, String endpointUri, String headers) {
         BeanRouter beanRouter = new BeanRouter();
         ResourceConfig resourceConfig = new DefaultResourceConfig();
         if (selector != null) {
@@ -187,6 +248,9 @@ public class BeanRouterTest extends CamelTestSupport {
         }
         resourceConfig.setParameter("beanId", beanId);
         resourceConfig.setParameter("toEndpoint", endpointUri);
+        if (headers != null) {
+            resourceConfig.setParameter("headers", headers);
+        }
 
         MockApplicationContext appContext = new MockApplicationContext();
         appContext.getRegistry().registerObject(CamelContext.class, context);
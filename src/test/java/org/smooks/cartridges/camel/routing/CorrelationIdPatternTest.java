@@ -0,0 +1,109 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.cartridges.camel.Coordinate;
+import org.smooks.support.FreeMarkerTemplate;
+import org.smooks.support.FreeMarkerUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for {@link CorrelationIdPattern}.
+ */
+public class CorrelationIdPatternTest {
+
+    private ExecutionContext executionContext;
+
+    @BeforeEach
+    public void beforeEach() {
+        executionContext = new Smooks().createExecutionContext();
+        executionContext.getBeanContext().addBean("coordinate", new Coordinate(1000, 2));
+        executionContext.getBeanContext().addBean("order", Map.of("id", "ord-1", "total", new BigDecimal("10.5"), "delta", -3));
+    }
+
+    @Test
+    public void applyCompiledPattern() {
+        assertCompiled("${coordinate.x}-${ coordinate.y }", true);
+        assertCompiled("order:${order.id}", true);
+        assertCompiled("${coordinate}", true);
+    }
+
+    @Test
+    public void applyFallsBackToFreeMarkerForValuesNotRenderedByCompiledPattern() {
+        assertCompiled("${order.total}", true);
+        assertCompiled("${order.delta}", true);
+    }
+
+    @Test
+    public void applyFreeMarkerPattern() {
+        assertCompiled("${coordinate.x?c}", false);
+        assertCompiled("<#if coordinate.x gt 1>big</#if>", false);
+        assertCompiled("${(order.id)!'none'}", false);
+        assertCompiled("${true?c}", false);
+    }
+
+    @Test
+    public void applyThrowsExceptionWhenBeanIsMissing() {
+        final CorrelationIdPattern correlationIdPattern = new CorrelationIdPattern(new FreeMarkerTemplate("${missing.x}"));
+        assertTrue(correlationIdPattern.isCompiled());
+        assertThrows(SmooksException.class, () -> correlationIdPattern.apply(executionContext));
+    }
+
+    private void assertCompiled(final String pattern, final boolean compiled) {
+        final FreeMarkerTemplate template = new FreeMarkerTemplate(pattern);
+        final CorrelationIdPattern correlationIdPattern = new CorrelationIdPattern(template);
+        assertEquals(compiled, correlationIdPattern.isCompiled());
+        assertEquals(template.apply(FreeMarkerUtils.getMergedModel(executionContext)), correlationIdPattern.apply(executionContext));
+    }
+}
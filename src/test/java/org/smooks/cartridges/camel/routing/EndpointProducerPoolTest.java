@@ -0,0 +1,86 @@
+/*-
+ * ========================LICENSE_START=================================
+ * smooks-camel-cartridge
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ *
+ * ======================================================================
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ======================================================================
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.cartridges.camel.routing;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.test.junit5.CamelTestSupport;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for {@link EndpointProducerPool}.
+ */
+public class EndpointProducerPoolTest extends CamelTestSupport {
+
+    @Test
+    public void getReturnsPoolOfCamelContext() throws Exception {
+        final EndpointProducerPool endpointProducerPool = EndpointProducerPool.get(context);
+        assertSame(endpointProducerPool, EndpointProducerPool.get(context));
+        assertTrue(endpointProducerPool.isStarted());
+
+        try (CamelContext otherCamelContext = new DefaultCamelContext()) {
+            otherCamelContext.start();
+            assertNotSame(endpointProducerPool, EndpointProducerPool.get(otherCamelContext));
+        }
+    }
+
+    @Test
+    public void getEndpointCachesEndpoint() {
+        final EndpointProducerPool endpointProducerPool = EndpointProducerPool.get(context);
+        assertSame(endpointProducerPool.getEndpoint("mock://endpointProducerPoolTest"), endpointProducerPool.getEndpoint("mock://endpointProducerPoolTest"));
+    }
+
+    @Test
+    public void stopCamelContextStopsPool() throws Exception {
+        final CamelContext camelContext = new DefaultCamelContext();
+        camelContext.start();
+        final EndpointProducerPool endpointProducerPool = EndpointProducerPool.get(camelContext);
+        camelContext.stop();
+
+        assertTrue(endpointProducerPool.isStopped());
+    }
+}